@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createFiles;
+import static org.icgc.dcc.repository.core.RepositoryFileContextBuilder.getLocalMongoClientUri;
+import static org.icgc.dcc.repository.core.util.Jongos.closeJongo;
+import static org.icgc.dcc.repository.core.util.Jongos.newJongo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.icgc.dcc.repository.core.util.RepositoryFiles;
+import org.icgc.dcc.repository.index.document.DonorTextDocumentProcessor;
+import org.icgc.dcc.repository.index.document.FileCentricDocumentProcessor;
+import org.icgc.dcc.repository.index.document.FileDocumentProcessor;
+import org.icgc.dcc.repository.index.document.FileTextDocumentProcessor;
+import org.icgc.dcc.repository.index.model.Document;
+import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+import com.mongodb.MongoClientURI;
+
+import lombok.val;
+
+/**
+ * Measures the time and allocation needed to build the documents of each file document type.
+ * <p>
+ * Documents are handed to a {@link Blackhole} instead of being indexed or archived, so the bulk processor is never
+ * used and is left {@code null}. Every processor still acquires a Mongo client for the local URI on construction.
+ * The client is held open for the whole trial so that the processors of each invocation share it rather than each
+ * creating their own. No collection is ever read since the files are supplied directly, so MongoDB does not need to
+ * be running.
+ * <p>
+ * Closing a processor records its document count into the process wide metrics. This happens outside of the measured
+ * method.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DocumentProcessorBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final int FILE_COUNT = 10000;
+  private static final MongoClientURI MONGO_URI = getLocalMongoClientUri("dcc-repository-benchmark");
+  private static final String INDEX_NAME = "benchmark";
+
+  /**
+   * Configuration.
+   */
+  @Param({ "file-centric", "file-text", "donor-text" })
+  private String type;
+
+  /**
+   * State.
+   */
+  private List<ObjectNode> files;
+  private TarArchiveDocumentWriter archiveWriter;
+  private FileDocumentProcessor processor;
+  private Blackhole blackhole;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.files = createFiles(FILE_COUNT).stream().map(RepositoryFiles::toObjectNode).collect(toList());
+    this.archiveWriter = new TarArchiveDocumentWriter(INDEX_NAME, ByteStreams.nullOutputStream());
+
+    // Keeps the shared client open between invocations
+    newJongo(MONGO_URI);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    closeJongo(MONGO_URI);
+    archiveWriter.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpProcessor() {
+    // Processors accumulate state (e.g. donor summaries) so each invocation starts with a new one
+    this.processor = createProcessor();
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownProcessor() throws IOException {
+    processor.close();
+  }
+
+  @Benchmark
+  public int processFiles(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    for (val file : files) {
+      processor.processFile(file);
+    }
+
+    return processor.complete();
+  }
+
+  private FileDocumentProcessor createProcessor() {
+    switch (type) {
+    case "file-centric":
+      return new FileCentricDocumentProcessor(MONGO_URI, INDEX_NAME, null, archiveWriter) {
+
+        @Override
+        protected void addDocument(Document document) {
+          blackhole.consume(document);
+        }
+
+      };
+    case "file-text":
+      return new FileTextDocumentProcessor(MONGO_URI, INDEX_NAME, null, archiveWriter) {
+
+        @Override
+        protected void addDocument(Document document) {
+          blackhole.consume(document);
+        }
+
+      };
+    case "donor-text":
+      return new DonorTextDocumentProcessor(MONGO_URI, INDEX_NAME, null, archiveWriter) {
+
+        @Override
+        protected void addDocument(Document document) {
+          blackhole.consume(document);
+        }
+
+      };
+    default:
+      throw new IllegalArgumentException("Unknown document type: " + type);
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createContext;
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createFileGroups;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.icgc.dcc.repository.client.core.RepositoryFileCombiner;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lombok.val;
+
+/**
+ * Measures the time and allocation needed to combine groups of same-id files into a single file.
+ * <p>
+ * Run with {@code -prof gc} to report bytes allocated per operation.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RepositoryFileCombinerBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final int GROUP_COUNT = 1000;
+
+  /**
+   * Configuration.
+   */
+  @Param({ "1", "2", "3" })
+  private int groupSize;
+
+  /**
+   * State.
+   */
+  private RepositoryFileCombiner combiner;
+  private List<Set<RepositoryFile>> groups;
+
+  @Setup
+  public void setUp() {
+    this.combiner = new RepositoryFileCombiner(createContext());
+    this.groups = createFileGroups(GROUP_COUNT, groupSize);
+  }
+
+  @TearDown
+  public void tearDown() {
+    combiner.close();
+  }
+
+  @Benchmark
+  public void combineFiles(Blackhole blackhole) {
+    for (val file : combiner.combineFiles(groups)) {
+      blackhole.consume(file);
+    }
+  }
+
+}
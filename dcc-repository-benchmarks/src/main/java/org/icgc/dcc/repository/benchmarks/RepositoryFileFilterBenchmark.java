@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createContext;
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createFiles;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.icgc.dcc.repository.client.core.RepositoryFileFilter;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lombok.val;
+
+/**
+ * Measures the time and allocation needed to filter combined files that are not PCAWG published.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RepositoryFileFilterBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final int FILE_COUNT = 1000;
+
+  /**
+   * State.
+   */
+  private List<RepositoryFile> files;
+  private RepositoryFileFilter filter;
+
+  @Setup
+  public void setUpFiles() {
+    this.files = createFiles(FILE_COUNT);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpFilter() {
+    // Each pass adds its outcome counts to the report so start each iteration with an empty one
+    this.filter = new RepositoryFileFilter(createContext());
+  }
+
+  @Benchmark
+  public void filterFiles(Blackhole blackhole) {
+    for (val file : filter.filterFiles(files)) {
+      blackhole.consume(file);
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import static com.google.common.collect.Iterables.find;
+import static lombok.AccessLevel.PRIVATE;
+import static org.icgc.dcc.repository.core.model.RepositorySource.AWS;
+import static org.icgc.dcc.repository.core.model.RepositorySource.COLLAB;
+import static org.icgc.dcc.repository.core.model.RepositorySource.PCAWG;
+
+import java.util.List;
+import java.util.Set;
+
+import org.icgc.dcc.repository.core.RepositoryFileContext;
+import org.icgc.dcc.repository.core.RepositoryFileContextBuilder;
+import org.icgc.dcc.repository.core.model.Repositories;
+import org.icgc.dcc.repository.core.model.Repository;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.core.model.RepositoryFile.AnalysisType;
+import org.icgc.dcc.repository.core.model.RepositoryFile.DataType;
+import org.icgc.dcc.repository.core.model.RepositoryFile.ExperimentalStrategy;
+import org.icgc.dcc.repository.core.model.RepositoryFile.FileFormat;
+import org.icgc.dcc.repository.core.model.RepositoryFile.ReferenceGenome;
+import org.icgc.dcc.repository.core.model.RepositoryFile.Software;
+import org.icgc.dcc.repository.core.model.RepositoryFile.Study;
+import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * Synthetic repository files shaped like the output of the importers.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class RepositoryFileFixtures {
+
+  /**
+   * Constants.
+   */
+  private static final List<RepositorySource> SOURCES = ImmutableList.of(PCAWG, AWS, COLLAB);
+
+  /**
+   * Creates a context that requires no running services: no import database, hashed ids and empty id resolvers.
+   */
+  public static RepositoryFileContext createContext() {
+    return RepositoryFileContextBuilder.builder()
+        .importMongoUri(null)
+        .realIds(false)
+        .indexAlias("benchmark")
+        .pcawgIdResolver(() -> RepositorySubmittedDonorIds.empty())
+        .dccIdResolver(() -> RepositorySubmittedDonorIds.empty())
+        .build();
+  }
+
+  /**
+   * Creates {@code groupCount} groups of {@code groupSize} copies of the same file, as produced by the collector.
+   */
+  public static List<Set<RepositoryFile>> createFileGroups(int groupCount, int groupSize) {
+    val groups = Lists.<Set<RepositoryFile>> newArrayListWithCapacity(groupCount);
+    for (int i = 0; i < groupCount; i++) {
+      val group = Sets.<RepositoryFile> newHashSetWithExpectedSize(groupSize);
+      for (int j = 0; j < groupSize; j++) {
+        group.add(createFile(i, SOURCES.get(j % SOURCES.size())));
+      }
+
+      groups.add(group);
+    }
+
+    return groups;
+  }
+
+  /**
+   * Creates {@code count} files, one per group, cycling through the sources.
+   */
+  public static List<RepositoryFile> createFiles(int count) {
+    val files = Lists.<RepositoryFile> newArrayListWithCapacity(count);
+    for (int i = 0; i < count; i++) {
+      files.add(createFile(i, SOURCES.get(i % SOURCES.size())));
+    }
+
+    return files;
+  }
+
+  public static RepositoryFile createFile(int i, RepositorySource source) {
+    val repository = getRepository(source);
+    val file = new RepositoryFile()
+        .setId("FI" + i)
+        .setObjectId("object-" + i)
+        .setStudy(source == PCAWG ? Lists.newArrayList(Study.PCAWG) : Lists.<String> newArrayList())
+        .setAccess("controlled");
+
+    file.getDataBundle().setDataBundleId("bundle-" + i / 3);
+    file.getAnalysisMethod()
+        .setAnalysisType(AnalysisType.REFERENCE_ALIGNMENT)
+        .setSoftware(Software.BWA_MEM);
+    file.getDataCategorization()
+        .setDataType(DataType.ALIGNED_READS)
+        .setExperimentalStrategy(ExperimentalStrategy.WGS);
+    file.setReferenceGenome(ReferenceGenome.PCAWG);
+
+    file.addFileCopy()
+        .setFileName("file-" + i + ".bam")
+        .setFileFormat(FileFormat.BAM)
+        .setFileSize(1024L * i)
+        .setFileMd5sum("md5-" + i)
+        .setLastModified(1456790400L)
+        .setRepoDataBundleId("bundle-" + i / 3)
+        .setRepoFileId("repo-file-" + i)
+        .setRepoOrg(source.getId())
+        .setRepoName(repository.getName())
+        .setRepoCode(repository.getCode())
+        .setRepoType(repository.getType().getId())
+        .setRepoCountry(repository.getCountry())
+        .setRepoBaseUrl(repository.getBaseUrl())
+        .setRepoDataPath(repository.getType().getDataPath())
+        .setRepoMetadataPath(repository.getType().getMetadataPath());
+
+    file.addDonor()
+        .setProjectCode("PRAD-CA")
+        .setProgram("PCAWG")
+        .setStudy(Study.PCAWG)
+        .setPrimarySite("Prostate")
+        .setDonorId("DO" + i / 3)
+        .setSpecimenId(ImmutableList.of("SP" + i / 3))
+        .setSpecimenType(ImmutableList.of("Normal - blood derived"))
+        .setSampleId(ImmutableList.of("SA" + i / 3))
+        .setSubmittedDonorId("donor-" + i / 3)
+        .setSubmittedSpecimenId(ImmutableList.of("specimen-" + i / 3))
+        .setSubmittedSampleId(ImmutableList.of("sample-" + i / 3));
+
+    return file;
+  }
+
+  private static Repository getRepository(RepositorySource source) {
+    return find(Repositories.getRepositories(), repository -> repository.getSource() == source);
+  }
+
+}
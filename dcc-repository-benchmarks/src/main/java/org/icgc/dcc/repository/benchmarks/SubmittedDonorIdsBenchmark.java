@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
+
+/**
+ * Measures the time and allocation needed to test submitted donor id membership, comparing a set of qualified
+ * {@code projectCode:submittedDonorId} strings with the per project index. Run with {@code -prof gc} to see the
+ * allocation per lookup.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SubmittedDonorIdsBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final int PROJECT_COUNT = 80;
+  private static final int DONOR_COUNT = 25_000;
+  private static final int LOOKUP_COUNT = 1000;
+
+  /**
+   * State.
+   */
+  private Set<String> qualifiedIds;
+  private RepositorySubmittedDonorIds indexedIds;
+  private String[] projectCodes;
+  private String[] submittedDonorIds;
+
+  @Setup
+  public void setUp() {
+    val qualified = ImmutableSet.<String> builder();
+    val indexed = RepositorySubmittedDonorIds.builder();
+    for (int i = 0; i < DONOR_COUNT; i++) {
+      val projectCode = projectCode(i);
+      val submittedDonorId = submittedDonorId(i);
+      qualified.add(projectCode + ":" + submittedDonorId);
+      indexed.add(projectCode, submittedDonorId);
+    }
+
+    this.qualifiedIds = qualified.build();
+    this.indexedIds = indexed.build();
+
+    // Half of the lookups miss, as most files of the non-DCC repositories are not in the release
+    this.projectCodes = new String[LOOKUP_COUNT];
+    this.submittedDonorIds = new String[LOOKUP_COUNT];
+    for (int i = 0; i < LOOKUP_COUNT; i++) {
+      val donor = i % 2 == 0 ? i * 7 : DONOR_COUNT + i;
+      projectCodes[i] = projectCode(donor);
+      submittedDonorIds[i] = submittedDonorId(donor);
+    }
+  }
+
+  @Benchmark
+  public void containsQualified(Blackhole blackhole) {
+    for (int i = 0; i < LOOKUP_COUNT; i++) {
+      blackhole.consume(qualifiedIds.contains(projectCodes[i] + ":" + submittedDonorIds[i]));
+    }
+  }
+
+  @Benchmark
+  public void containsIndexed(Blackhole blackhole) {
+    for (int i = 0; i < LOOKUP_COUNT; i++) {
+      blackhole.consume(indexedIds.contains(projectCodes[i], submittedDonorIds[i]));
+    }
+  }
+
+  private static String projectCode(int donor) {
+    return "PROJECT-" + donor % PROJECT_COUNT;
+  }
+
+  private static String submittedDonorId(int donor) {
+    return "DO-" + String.format("%08d", donor);
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.benchmarks;
+
+import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.repository.benchmarks.RepositoryFileFixtures.createFiles;
+import static org.icgc.dcc.repository.core.util.RepositoryFiles.toObjectNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.icgc.dcc.repository.index.model.Document;
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+
+import lombok.val;
+
+/**
+ * Measures the time and allocation needed to serialize file documents into the archive.
+ * <p>
+ * The archive is written to a null stream so only serialization and tar framing are measured, not compression or
+ * I/O.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TarArchiveDocumentWriterBenchmark {
+
+  /**
+   * Constants.
+   */
+  private static final int DOCUMENT_COUNT = 1000;
+
+  /**
+   * State.
+   */
+  private List<Document> documents;
+  private TarArchiveDocumentWriter writer;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.documents = createFiles(DOCUMENT_COUNT).stream()
+        .map(file -> new Document(DocumentType.FILE_CENTRIC, file.getId(), toObjectNode(file)))
+        .collect(toList());
+    this.writer = new TarArchiveDocumentWriter("benchmark", ByteStreams.nullOutputStream());
+  }
+
+  @TearDown
+  public void tearDown() {
+    writer.close();
+  }
+
+  @Benchmark
+  public void writeDocuments() throws IOException {
+    for (val document : documents) {
+      writer.write(document);
+    }
+  }
+
+}
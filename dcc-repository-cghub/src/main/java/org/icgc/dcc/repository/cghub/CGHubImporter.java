@@ -17,8 +17,11 @@
  */
 package org.icgc.dcc.repository.cghub;
 
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.RepositorySource.CGHUB;
 
+import java.util.stream.Stream;
+
 import org.icgc.dcc.repository.cghub.core.CGHubFileProcessor;
 import org.icgc.dcc.repository.cghub.reader.CGHubAnalysisDetailReader;
 import org.icgc.dcc.repository.core.RepositoryFileContext;
@@ -41,16 +44,16 @@ public class CGHubImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     log.info("Reading details...");
     val details = readDetails();
     log.info("Finished reading details");
 
+    // Details are processed as they are written
     log.info("Processing details...");
     val files = processDetails(details);
-    log.info("Finished processing details");
 
-    return files;
+    return stream(files);
   }
 
   private Iterable<ObjectNode> readDetails() {
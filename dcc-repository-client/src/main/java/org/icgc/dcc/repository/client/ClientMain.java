@@ -20,12 +20,15 @@ package org.icgc.dcc.repository.client;
 import static java.lang.System.err;
 import static java.lang.System.exit;
 
+import java.util.stream.Stream;
+
 import org.icgc.dcc.repository.client.config.ClientProperties;
 import org.icgc.dcc.repository.client.core.RepositoryImporter;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import lombok.Cleanup;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,6 +45,7 @@ public class ClientMain {
   public static final String APPLICATION_NAME = "dcc-repository-client";
   public static final int SUCCESS_STATUS_CODE = 0;
   public static final int FAILURE_STATUS_CODE = 1;
+  public static final String RESUME_OPTION = "--resume";
 
   /**
    * Entry point into the application.
@@ -61,6 +65,8 @@ public class ClientMain {
   }
 
   private static void run(String... args) {
+    // Closing releases resources held by the beans, such as the id cache of the file context
+    @Cleanup
     val applicationContext = createApplicationContext(args);
     val properties = applicationContext.getBean(ClientProperties.class);
     val importer = applicationContext.getBean(RepositoryImporter.class);
@@ -75,7 +81,14 @@ public class ClientMain {
   private static ConfigurableApplicationContext createApplicationContext(String... args) {
     return new SpringApplicationBuilder()
         .sources(ClientMain.class)
-        .run(args);
+        .run(resolveOptions(args));
+  }
+
+  private static String[] resolveOptions(String... args) {
+    // Shorthand for {@code repository.resume}
+    return Stream.of(args)
+        .map(arg -> arg.equals(RESUME_OPTION) ? "--repository.resume=true" : arg)
+        .toArray(String[]::new);
   }
 
 }
@@ -58,17 +58,32 @@ public class ClientConfig {
     context
         .sources(properties.getRepository().getSources());
 
+    // Execution
+    context
+        .importThreads(properties.getRepository().getImportThreads())
+        .combineThreads(properties.getRepository().getCombineThreads())
+        .fused(properties.getRepository().isFused())
+        .incremental(properties.getRepository().isIncremental())
+        .resume(properties.getRepository().isResume())
+        .idThreads(properties.getRepository().getIdThreads())
+        .writeBatchSize(properties.getRepository().getWriteBatchSize())
+        .writeThreads(properties.getRepository().getWriteThreads())
+        .readPartitions(properties.getRepository().getReadPartitions())
+        .metadataPrefetch(properties.getRepository().isMetadataPrefetch());
+
     // IDs
     context
         .idUrl(properties.getId().getServiceUrl())
         .authToken(properties.getId().getAuthToken())
+        .idCacheFile(properties.getId().getCacheFile())
         .realIds(true);
 
     // Reference
     context
         .pcawgIdResolver(new PCAWGDonorIdResolver())
         .dccIdResolver(new DCCDonorIdResolver())
-        .importMongoUri(properties.getImports().getMongoUri());
+        .importMongoUri(properties.getImports().getMongoUri())
+        .codeListsFile(properties.getRepository().getCodeListsFile());
 
     // Outputs
     context
@@ -79,7 +94,8 @@ public class ClientConfig {
 
     // Reporting
     context
-        .report(new BufferedReport());
+        .report(new BufferedReport())
+        .metricsDir(properties.getRepository().getMetricsDir());
 
     return context.build();
   }
@@ -17,6 +17,7 @@
  */
 package org.icgc.dcc.repository.client.config;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Set;
 
@@ -60,6 +61,67 @@ public class ClientProperties {
     URI archiveUri;
     String indexAlias;
 
+    /**
+     * Number of sources imported concurrently. A value of {@code 1} imports sources sequentially.
+     */
+    int importThreads = 1;
+
+    /**
+     * Number of threads used to combine files. A value of {@code 1} combines files sequentially.
+     */
+    int combineThreads = 1;
+
+    /**
+     * Index merged files as they are produced instead of reading them back from the {@code File} collection.
+     */
+    boolean fused;
+
+    /**
+     * Only recombine and rewrite files whose source documents changed since the previous merge.
+     */
+    boolean incremental;
+
+    /**
+     * Skip the work recorded as completed in the run manifest of a previous failed run.
+     */
+    boolean resume;
+
+    /**
+     * Maximum number of ID service requests in flight at once. A value of {@code 1} requests ids sequentially.
+     */
+    int idThreads = 1;
+
+    /**
+     * Number of documents sent to Mongo per bulk write.
+     */
+    int writeBatchSize = 1000;
+
+    /**
+     * Number of bulk writes in flight at once. A value of {@code 1} writes sequentially.
+     */
+    int writeThreads = 1;
+
+    /**
+     * Number of partitions the {@code File} collection is read in concurrently when indexing. A value of {@code 1}
+     * reads it with a single cursor.
+     */
+    int readPartitions = 1;
+
+    /**
+     * Fetch all metadata server entities once and answer entity lookups from memory instead of per file requests.
+     */
+    boolean metadataPrefetch;
+
+    /**
+     * Directory to write the metrics of each run to as JSON. Metrics are only logged if not set.
+     */
+    File metricsDir;
+
+    /**
+     * File to save downloaded code lists to and to read them from while they are fresh. Always downloaded if not set.
+     */
+    File codeListsFile;
+
     public Set<RepositoryImporter.Step> getSteps() {
       return steps == null || steps.isEmpty() ? Step.all() : steps;
     }
@@ -85,6 +147,11 @@ public class ClientProperties {
     String serviceUrl;
     String authToken;
 
+    /**
+     * Local file that caches assigned ids across runs. Ids are always requested from the service if not set.
+     */
+    File cacheFile;
+
   }
 
   @Data
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.client.core;
+
+import static com.google.common.collect.Iterators.peekingIterator;
+import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.icgc.dcc.repository.client.core.RepositoryFileFingerprints.Fingerprint;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.core.util.RepositoryFiles;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Detects which file ids changed since the previous merge by joining the collected file groups with the previously
+ * saved fingerprints.
+ * <p>
+ * Both inputs are ordered by {@code id}, so the join streams and only the changes are held in memory. The detected
+ * changes are available once the returned files have been fully iterated.
+ * <p>
+ * Groups without an {@code id} cannot be tracked by fingerprint and are only written by a full merge.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RepositoryFileChangeDetector {
+
+  /**
+   * Constants.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final RepositoryFileFingerprints fingerprints;
+
+  /**
+   * State.
+   */
+  @Getter
+  private final Map<String, Long> changedFingerprints = Maps.newHashMap();
+  @Getter
+  private final Set<String> deletedIds = Sets.newHashSet();
+  private int unchangedCount;
+  private int untrackedCount;
+
+  /**
+   * Returns only those file groups whose content is new or differs from the previous merge.
+   */
+  public Iterable<Set<RepositoryFile>> detectChanges(@NonNull Iterable<Set<RepositoryFile>> files) {
+    return () -> detectChanges(files.iterator(), peekingIterator(fingerprints.read()));
+  }
+
+  /**
+   * Returns all file groups unchanged while staging their fingerprints, for a full merge.
+   * <p>
+   * The staged fingerprints replace those of the previous merge once {@link RepositoryFileFingerprints#commitStaged()}
+   * is called after the merged files were written.
+   */
+  public Iterable<Set<RepositoryFile>> recordFingerprints(@NonNull Iterable<Set<RepositoryFile>> files) {
+    return () -> recordFingerprints(files.iterator());
+  }
+
+  /**
+   * @return the ids of all changed and deleted files
+   */
+  public Set<String> getAffectedIds() {
+    return ImmutableSet.<String> builder().addAll(changedFingerprints.keySet()).addAll(deletedIds).build();
+  }
+
+  private Iterator<Set<RepositoryFile>> detectChanges(Iterator<Set<RepositoryFile>> files,
+      PeekingIterator<Fingerprint> previous) {
+    log.info("Detecting changed files...");
+
+    return new AbstractIterator<Set<RepositoryFile>>() {
+
+      @Override
+      protected Set<RepositoryFile> computeNext() {
+        while (files.hasNext()) {
+          val group = files.next();
+          val id = getId(group);
+          if (id == null) {
+            // Would be upserted by a null id and so overwrite each other
+            untrackedCount++;
+            continue;
+          }
+
+          // Anything ordered before this id no longer exists in any source
+          while (previous.hasNext() && previous.peek().getId().compareTo(id) < 0) {
+            deletedIds.add(previous.next().getId());
+          }
+
+          val fingerprint = fingerprint(group);
+          if (previous.hasNext() && previous.peek().getId().equals(id)) {
+            val unchanged = previous.next().getValue() == fingerprint;
+            if (unchanged) {
+              unchangedCount++;
+              continue;
+            }
+          }
+
+          changedFingerprints.put(id, fingerprint);
+          return group;
+        }
+
+        while (previous.hasNext()) {
+          deletedIds.add(previous.next().getId());
+        }
+
+        log.info("Detected {} changed, {} deleted and {} unchanged files",
+            formatCount(changedFingerprints.size()), formatCount(deletedIds.size()), formatCount(unchangedCount));
+        warnUntracked();
+
+        return endOfData();
+      }
+
+    };
+  }
+
+  private Iterator<Set<RepositoryFile>> recordFingerprints(Iterator<Set<RepositoryFile>> files) {
+    log.info("Recording file fingerprints...");
+    fingerprints.clearStaged();
+
+    return new AbstractIterator<Set<RepositoryFile>>() {
+
+      /**
+       * State.
+       */
+      final Map<String, Long> batch = Maps.newHashMapWithExpectedSize(BATCH_SIZE);
+
+      @Override
+      protected Set<RepositoryFile> computeNext() {
+        if (!files.hasNext()) {
+          fingerprints.stage(batch);
+          warnUntracked();
+
+          return endOfData();
+        }
+
+        val group = files.next();
+        val id = getId(group);
+        if (id == null) {
+          untrackedCount++;
+          return group;
+        }
+
+        batch.put(id, fingerprint(group));
+        if (batch.size() >= BATCH_SIZE) {
+          fingerprints.stage(batch);
+          batch.clear();
+        }
+
+        return group;
+      }
+
+    };
+  }
+
+  private void warnUntracked() {
+    if (untrackedCount > 0) {
+      log.warn("*** Skipped fingerprinting {} files without an id. These are only written by a full merge",
+          formatCount(untrackedCount));
+    }
+  }
+
+  private static String getId(Set<RepositoryFile> group) {
+    return group.iterator().next().getId();
+  }
+
+  private static long fingerprint(Set<RepositoryFile> files) {
+    // Order independent since the files of a group come from an unordered set
+    val hashCodes = files.stream()
+        .map(file -> HashCode.fromLong(RepositoryFiles.fingerprint(file)))
+        .collect(toList());
+
+    return Hashing.combineUnordered(hashCodes).asLong();
+  }
+
+}
@@ -17,82 +17,105 @@
  */
 package org.icgc.dcc.repository.client.core;
 
+import static com.google.common.collect.Iterators.mergeSorted;
+import static com.google.common.collect.Iterators.peekingIterator;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.counted;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.reader.RepositorySourceFileReader;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Collects the files of all active sources, grouped by {@code id}.
+ * <p>
+ * Each source collection is read as a cursor ordered by {@code id} and the cursors are merged N-ways so that only the
+ * current group of each source is held in memory at any one time.
+ */
 @Slf4j
-@RequiredArgsConstructor
-public class RepositoryFileCollector {
+public class RepositoryFileCollector implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final Ordering<RepositoryFile> ID_ORDER =
+      Ordering.<String> natural().nullsFirst().onResultOf(RepositoryFile::getId);
 
   /**
    * Dependencies.
    */
   @NonNull
   private final RepositoryFileContext context;
+  @NonNull
+  private final List<RepositorySourceFileReader> readers;
+
+  public RepositoryFileCollector(@NonNull RepositoryFileContext context) {
+    this.context = context;
+    this.readers = createReaders();
+  }
 
   public Iterable<Set<RepositoryFile>> collectFiles() {
     log.info("Collecting files...");
-    val readers = createReaders();
-    val files = readFiles(readers);
-
-    return iterable(files);
+    return counted("merge.collect", () -> mergeFiles());
   }
 
-  private HashMultimap<String, RepositoryFile> readFiles(Iterable<RepositorySourceFileReader> readers) {
-    // TODO: This isn't lazy and should be doing an N-way merge instead to avoid bringing everything into memory at
-    // once.
-    val files = HashMultimap.<String, RepositoryFile> create();
+  @Override
+  public void close() throws IOException {
     for (val reader : readers) {
-      for (val file : reader.read()) {
-        files.put(file.getId(), file);
-      }
+      reader.close();
     }
+  }
+
+  private Iterator<Set<RepositoryFile>> mergeFiles() {
+    val cursors = readers.stream()
+        .map(reader -> reader.readOrderedById().iterator())
+        .collect(toImmutableList());
 
-    return files;
+    return groupById(peekingIterator(mergeSorted(cursors, ID_ORDER)));
   }
 
-  private Iterable<RepositorySourceFileReader> createReaders() {
+  private List<RepositorySourceFileReader> createReaders() {
     log.info("Creating readers for sources: {}...", context.getSources());
     return context.getSources().stream()
         .map(source -> new RepositorySourceFileReader(context.getMongoUri(), source))
         .collect(toImmutableList());
   }
 
-  private Iterable<Set<RepositoryFile>> iterable(HashMultimap<String, RepositoryFile> files) {
-    return new Iterable<Set<RepositoryFile>>() {
+  private static Iterator<Set<RepositoryFile>> groupById(PeekingIterator<RepositoryFile> files) {
+    return new AbstractIterator<Set<RepositoryFile>>() {
 
       @Override
-      public Iterator<Set<RepositoryFile>> iterator() {
-
-        Iterator<String> delegate = files.keySet().iterator();
-
-        return new Iterator<Set<RepositoryFile>>() {
-
-          @Override
-          public boolean hasNext() {
-            return delegate.hasNext();
-          }
-
-          @Override
-          public Set<RepositoryFile> next() {
-            return files.get(delegate.next());
-          }
-
-        };
+      protected Set<RepositoryFile> computeNext() {
+        if (!files.hasNext()) {
+          return endOfData();
+        }
+
+        // Consecutive files share the same id since all cursors are ordered by id
+        val id = files.peek().getId();
+        val group = Sets.<RepositoryFile> newHashSet();
+        while (files.hasNext() && Objects.equals(files.peek().getId(), id)) {
+          group.add(files.next());
+        }
+
+        return group;
       }
+
     };
   }
 
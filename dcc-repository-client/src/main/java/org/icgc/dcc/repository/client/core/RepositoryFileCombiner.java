@@ -17,20 +17,36 @@
  */
 package org.icgc.dcc.repository.client.core;
 
+import static com.google.common.base.Throwables.propagate;
+import static java.util.Collections.emptyIterator;
 import static java.util.stream.Collectors.toList;
-import static org.icgc.dcc.common.core.util.function.Predicates.distinctByKey;
-import static org.icgc.dcc.repository.core.util.RepositoryFiles.inPCAWGOrder;
+import static org.icgc.dcc.repository.core.util.RepositoryFiles.isPCAWGFile;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.counted;
 
+import java.io.Closeable;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
-
+import org.icgc.dcc.repository.core.model.RepositoryFile.AnalysisMethod;
+import org.icgc.dcc.repository.core.model.RepositoryFile.DataBundle;
+import org.icgc.dcc.repository.core.model.RepositoryFile.DataCategorization;
+import org.icgc.dcc.repository.core.model.RepositoryFile.Donor;
+import org.icgc.dcc.repository.core.model.RepositoryFile.ReferenceGenome;
+import org.icgc.dcc.repository.core.util.RepositoryFiles;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import lombok.NonNull;
@@ -38,9 +54,22 @@ import lombok.RequiredArgsConstructor;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Lazily combines groups of same-id files into a single file.
+ * <p>
+ * When combining with more than one thread, each iteration owns a thread pool that is released once the iteration is
+ * exhausted. Consumers that may stop early must {@link #close()} the combiner to release the pools of unfinished
+ * iterations.
+ */
 @Slf4j
 @RequiredArgsConstructor
-public class RepositoryFileCombiner {
+public class RepositoryFileCombiner implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final int BATCH_SIZE_PER_THREAD = 1000;
+  private static final int MAX_IN_FLIGHT_BATCHES = 2;
 
   /**
    * Dependencies.
@@ -48,9 +77,27 @@ public class RepositoryFileCombiner {
   @NonNull
   private final RepositoryFileContext context;
 
+  /**
+   * State.
+   */
+  private final Set<ParallelCombineIterator> iterators = Sets.newConcurrentHashSet();
+
+  @Override
+  public void close() {
+    for (val iterator : iterators) {
+      iterator.close();
+    }
+  }
+
   public Iterable<RepositoryFile> combineFiles(Iterable<Set<RepositoryFile>> files) {
+    val combineThreads = context.getSettings().getCombineThreads();
+    if (combineThreads > 1) {
+      log.info("Lazily combining files using {} threads...", combineThreads);
+      return counted("merge.combine", () -> new ParallelCombineIterator(files.iterator(), combineThreads));
+    }
+
     log.info("Lazily combining files...");
-    return new Iterable<RepositoryFile>() {
+    return counted("merge.combine", new Iterable<RepositoryFile>() {
 
       @Override
       public Iterator<RepositoryFile> iterator() {
@@ -73,59 +120,188 @@ public class RepositoryFileCombiner {
         };
       }
 
-    };
+    });
   }
 
   private RepositoryFile combineFiles(Set<RepositoryFile> files) {
     // TODO: Add checks for all root fields and very least add reporting for inconsistent fields, if not fail processing
-    val prioritizedFiles = prioritize(files);
-
     val combinedFile = new RepositoryFile();
+    val fileCopies = combinedFile.getFileCopies();
+    val donors = combinedFile.getDonors();
+
+    // Selected values
+    String id = null;
+    String objectId = null;
+    List<String> study = null;
+    String access = null;
+    DataBundle dataBundle = null;
+    AnalysisMethod analysisMethod = null;
+    DataCategorization dataCategorization = null;
+    ReferenceGenome referenceGenome = null;
+    boolean conflicts = false;
+
+    // Prioritize PCAWG ahead of others since it carries the most information. Most groups have a single file so
+    // there is nothing to prioritize.
+    val prioritized = files.size() > 1;
+    for (int pass = 0; pass < (prioritized ? 2 : 1); pass++) {
+      for (val file : files) {
+        if (prioritized && isPCAWGFile(file) != (pass == 0)) {
+          continue;
+        }
+
+        conflicts |= isConflict(id, file.getId())
+            || isConflict(objectId, file.getObjectId())
+            || isConflict(access, file.getAccess());
+
+        //
+        // Select One
+        //
+
+        id = select(id, file.getId());
+        objectId = select(objectId, file.getObjectId());
+        study = select(study, file.getStudy());
+        access = select(access, file.getAccess());
+        dataBundle = select(dataBundle, file.getDataBundle());
+        analysisMethod = select(analysisMethod, file.getAnalysisMethod());
+        dataCategorization = select(dataCategorization, file.getDataCategorization());
+        referenceGenome = select(referenceGenome, file.getReferenceGenome());
+
+        //
+        // Combine All
+        //
+
+        fileCopies.addAll(file.getFileCopies());
+        for (val donor : file.getDonors()) {
+          if (!containsDonor(donors, donor.getDonorId())) {
+            donors.add(donor);
+          }
+        }
+      }
+    }
 
-    //
-    // Select One
-    //
+    if (conflicts) {
+      analyzeFields(files);
+    }
 
-    val ids = get(prioritizedFiles, RepositoryFile::getId);
-    analyzeField(files, "id", ids);
-    combinedFile.setId(combineField(ids));
+    return combinedFile
+        .setId(id)
+        .setObjectId(objectId)
+        .setStudy(study)
+        .setAccess(access)
+        .setDataBundle(dataBundle)
+        .setAnalysisMethod(analysisMethod)
+        .setDataCategorization(dataCategorization)
+        .setReferenceGenome(referenceGenome);
+  }
 
-    val objectIds = get(prioritizedFiles, RepositoryFile::getObjectId);
-    analyzeField(files, "objectId", objectIds);
-    combinedFile.setObjectId(combineField(objectIds));
+  private void analyzeFields(Set<RepositoryFile> files) {
+    // Only reached for inconsistent groups so favour clarity over allocation
+    val prioritizedFiles = prioritize(files);
+    analyzeField(files, "id", get(prioritizedFiles, RepositoryFile::getId));
+    analyzeField(files, "objectId", get(prioritizedFiles, RepositoryFile::getObjectId));
+    analyzeField(files, "access", get(prioritizedFiles, RepositoryFile::getAccess));
+  }
 
-    val studies = get(prioritizedFiles, RepositoryFile::getStudy);
-    combinedFile.setStudy(combineField(studies));
+  /**
+   * Combines batches of groups in a fork-join pool while the previous batch is being consumed.
+   * <p>
+   * Within a batch, groups are partitioned by a hash of their {@code id} so each id is combined by exactly one task.
+   * At most {@link #MAX_IN_FLIGHT_BATCHES} batches are read ahead of the consumer to bound memory. Output order
+   * follows the batches but not the ids within a batch.
+   * <p>
+   * The pool is shut down when the iterator is exhausted or {@link #close() closed}, whichever comes first.
+   */
+  private class ParallelCombineIterator extends AbstractIterator<RepositoryFile> implements Closeable {
+
+    /**
+     * Configuration.
+     */
+    private final int partitionCount;
+    private final int batchSize;
+
+    /**
+     * Dependencies.
+     */
+    private final Iterator<Set<RepositoryFile>> groups;
+    private final ForkJoinPool pool;
+
+    /**
+     * State.
+     */
+    private final Deque<ForkJoinTask<List<RepositoryFile>>> batches = new ArrayDeque<>();
+    private Iterator<RepositoryFile> batch = emptyIterator();
+
+    private ParallelCombineIterator(Iterator<Set<RepositoryFile>> groups, int threads) {
+      this.partitionCount = threads;
+      this.batchSize = threads * BATCH_SIZE_PER_THREAD;
+      this.groups = groups;
+      this.pool = new ForkJoinPool(threads);
+
+      iterators.add(this);
+    }
+
+    @Override
+    public void close() {
+      // Pending batches are abandoned since nobody will consume them
+      pool.shutdownNow();
+      iterators.remove(this);
+    }
 
-    val accesses = get(prioritizedFiles, RepositoryFile::getAccess);
-    analyzeField(files, "access", accesses);
-    combinedFile.setAccess(combineField(accesses));
+    @Override
+    protected RepositoryFile computeNext() {
+      while (!batch.hasNext()) {
+        // Read ahead
+        while (batches.size() < MAX_IN_FLIGHT_BATCHES && groups.hasNext()) {
+          batches.add(pool.submit(combineBatch(readPartitions())));
+        }
 
-    val dataBundles = get(prioritizedFiles, RepositoryFile::getDataBundle);
-    combinedFile.setDataBundle(combineField(dataBundles));
+        if (batches.isEmpty()) {
+          close();
+          return endOfData();
+        }
 
-    val analysisMethods = get(prioritizedFiles, RepositoryFile::getAnalysisMethod);
-    combinedFile.setAnalysisMethod(combineField(analysisMethods));
+        batch = awaitBatch(batches.remove()).iterator();
+      }
+
+      return batch.next();
+    }
 
-    val dataCategorizations = get(prioritizedFiles, RepositoryFile::getDataCategorization);
-    combinedFile.setDataCategorization(combineField(dataCategorizations));
+    private List<List<Set<RepositoryFile>>> readPartitions() {
+      val partitions = Lists.<List<Set<RepositoryFile>>> newArrayListWithCapacity(partitionCount);
+      for (int i = 0; i < partitionCount; i++) {
+        partitions.add(Lists.newArrayList());
+      }
 
-    val referenceGenomes = get(prioritizedFiles, RepositoryFile::getReferenceGenome);
-    combinedFile.setReferenceGenome(combineField(referenceGenomes));
+      for (int i = 0; i < batchSize && groups.hasNext(); i++) {
+        val group = groups.next();
+        val id = group.iterator().next().getId();
+        val partition = id == null ? 0 : Math.floorMod(id.hashCode(), partitionCount);
 
-    //
-    // Combine All
-    //
+        partitions.get(partition).add(group);
+      }
 
-    val fileCopies = getAll(prioritizedFiles, RepositoryFile::getFileCopies);
-    combinedFile.setFileCopies(fileCopies);
+      return partitions;
+    }
 
-    val uniqueDonors = getAll(prioritizedFiles, RepositoryFile::getDonors).stream()
-        .filter(distinctByKey(d -> d.getDonorId()))
-        .collect(toList());
-    combinedFile.setDonors(uniqueDonors);
+    private ForkJoinTask<List<RepositoryFile>> combineBatch(List<List<Set<RepositoryFile>>> partitions) {
+      // Parallel streams of a task run in the pool that executes the task
+      return ForkJoinTask.adapt(() -> partitions.parallelStream()
+          .flatMap(partition -> partition.stream().map(group -> combineFiles(group)))
+          .collect(toList()));
+    }
+
+    private List<RepositoryFile> awaitBatch(ForkJoinTask<List<RepositoryFile>> task) {
+      try {
+        return task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw propagate(e);
+      } catch (ExecutionException e) {
+        close();
+        throw propagate(e.getCause());
+      }
+    }
 
-    return combinedFile;
   }
 
   private <T> void analyzeField(Set<RepositoryFile> files, String fieldName, Collection<T> values) {
@@ -136,23 +312,36 @@ public class RepositoryFileCombiner {
     }
   }
 
-  private static <T> T combineField(Collection<T> values) {
-    // Try to find first non-null
-    return values.stream().filter(value -> value != null).findFirst().orElse(null);
+  private static <T> T select(T selected, T value) {
+    // First non-null wins
+    return selected != null ? selected : value;
   }
 
-  private static Set<RepositoryFile> prioritize(Set<RepositoryFile> files) {
-    // Prioritize PCAWG ahead of others since it carries the most information
-    val list = files.stream().sorted(inPCAWGOrder()).collect(Collectors.toList());
-    return Sets.newLinkedHashSet(list);
+  private static boolean isConflict(Object selected, Object value) {
+    return selected != null && value != null && !selected.equals(value);
   }
 
-  private static <T> List<T> get(Collection<RepositoryFile> files, Function<RepositoryFile, T> getter) {
-    return files.stream().map(getter).collect(toList());
+  private static boolean containsDonor(List<Donor> donors, String donorId) {
+    for (int i = 0; i < donors.size(); i++) {
+      if (Objects.equals(donors.get(i).getDonorId(), donorId)) {
+        return true;
+      }
+    }
+
+    return false;
   }
 
-  private static <T> List<T> getAll(Collection<RepositoryFile> files, Function<RepositoryFile, List<T>> getter) {
-    return files.stream().flatMap(file -> getter.apply(file).stream()).collect(toList());
+  private static List<RepositoryFile> prioritize(Set<RepositoryFile> files) {
+    // Same order as the combining passes
+    val list = Lists.<RepositoryFile> newArrayListWithCapacity(files.size());
+    files.stream().filter(RepositoryFiles::isPCAWGFile).forEach(list::add);
+    files.stream().filter(file -> !isPCAWGFile(file)).forEach(list::add);
+
+    return list;
+  }
+
+  private static <T> List<T> get(Collection<RepositoryFile> files, Function<RepositoryFile, T> getter) {
+    return files.stream().map(getter).collect(toList());
   }
 
 }
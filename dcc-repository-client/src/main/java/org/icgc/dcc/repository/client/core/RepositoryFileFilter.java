@@ -17,15 +17,15 @@
  */
 package org.icgc.dcc.repository.client.core;
 
-import static com.google.common.collect.Iterables.size;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
-import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableSet;
-import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.Repositories.getAWSRepository;
 import static org.icgc.dcc.repository.core.model.Repositories.getCollabRepository;
 import static org.icgc.dcc.repository.core.model.Repositories.getEGARepository;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.count;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.name;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
@@ -35,32 +35,97 @@ import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositoryFile.FileCopy;
 import org.icgc.dcc.repository.core.model.RepositorySource;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.Multiset;
+
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Lazily filters files in a single pass, counting the outcome of each file as it goes.
+ * <p>
+ * The counts are logged and published to the report once the files have been fully iterated.
+ */
 @Slf4j
 @RequiredArgsConstructor
 public class RepositoryFileFilter {
 
+  /**
+   * Outcome of filtering a single file.
+   */
+  private enum Outcome {
+
+    INCLUDED,
+
+    /**
+     * Not PCAWG published and only in AWS.
+     */
+    EXCLUDED_AWS,
+
+    /**
+     * Not PCAWG published and only in Collab.
+     */
+    EXCLUDED_COLLAB,
+
+    /**
+     * Not PCAWG published and in both AWS and Collab.
+     */
+    EXCLUDED_AWS_AND_COLLAB;
+
+  }
+
   /**
    * Dependencies.
    */
   @NonNull
   private final RepositoryFileContext context;
 
-  public Iterable<RepositoryFile> filterFiles(Iterable<RepositoryFile> files) {
+  public Iterable<RepositoryFile> filterFiles(@NonNull Iterable<RepositoryFile> files) {
+    return () -> filterFiles(files.iterator());
+  }
+
+  private Iterator<RepositoryFile> filterFiles(Iterator<RepositoryFile> files) {
     log.info("Filtering files...");
-    val filteredFiles = stream(files).filter(this::isIncluded).collect(toImmutableList());
-    log.info("Filtered {} files", formatCount(size(files) - filteredFiles.size()));
+    val outcomes = EnumMultiset.create(Outcome.class);
+
+    return new AbstractIterator<RepositoryFile>() {
+
+      @Override
+      protected RepositoryFile computeNext() {
+        while (files.hasNext()) {
+          val file = files.next();
+          val outcome = filterFile(file);
 
-    return filteredFiles;
+          outcomes.add(outcome);
+          if (outcome == Outcome.INCLUDED) {
+            return file;
+          }
+        }
+
+        report(outcomes);
+        return endOfData();
+      }
+
+    };
   }
 
-  private boolean isIncluded(RepositoryFile file) {
-    // Include all
-    return isPublished(file);
+  private void report(Multiset<Outcome> outcomes) {
+    val excludedCount = outcomes.size() - outcomes.count(Outcome.INCLUDED);
+    log.info("Filtered {} of {} files", formatCount(excludedCount), formatCount(outcomes.size()));
+    for (val outcome : Outcome.values()) {
+      count(name("merge", "filter", outcome.name().toLowerCase()), outcomes.count(outcome));
+    }
+
+    context.reportInfo(
+        "Filtered %s of %s files not PCAWG published: %s AWS only, %s Collab only, %s AWS and Collab",
+        formatCount(excludedCount),
+        formatCount(outcomes.size()),
+        formatCount(outcomes.count(Outcome.EXCLUDED_AWS)),
+        formatCount(outcomes.count(Outcome.EXCLUDED_COLLAB)),
+        formatCount(outcomes.count(Outcome.EXCLUDED_AWS_AND_COLLAB)));
   }
 
   /**
@@ -69,21 +134,27 @@ public class RepositoryFileFilter {
    * @see https://jira.oicr.on.ca/browse/DCC-4605
    * @see https://jira.oicr.on.ca/browse/DCC-4843
    */
-  private boolean isPublished(RepositoryFile file) {
+  private static Outcome filterFile(RepositoryFile file) {
     val repositories = resolveRepositories(file);
 
     // PCAWG published
     if (inPCAWG(repositories) || inEGA(repositories)) {
-      return true;
+      return Outcome.INCLUDED;
     }
 
     // Not released via PCAWG yet so ignore
-    if (inAWS(repositories) || inCollab(repositories)) {
-      return false;
+    val aws = inAWS(repositories);
+    val collab = inCollab(repositories);
+    if (aws && collab) {
+      return Outcome.EXCLUDED_AWS_AND_COLLAB;
+    } else if (aws) {
+      return Outcome.EXCLUDED_AWS;
+    } else if (collab) {
+      return Outcome.EXCLUDED_COLLAB;
     }
 
     // All others are considered published
-    return true;
+    return Outcome.INCLUDED;
   }
 
   private static boolean inPCAWG(Set<Repository> repositories) {
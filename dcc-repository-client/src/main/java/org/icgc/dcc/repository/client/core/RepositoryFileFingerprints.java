@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.client.core;
+
+import static com.google.common.collect.Iterables.partition;
+import static com.google.common.collect.Iterators.transform;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.model.RepositoryCollection.FILE_FINGERPRINT;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.icgc.dcc.repository.core.util.AbstractJongoComponent;
+import org.jongo.MongoCollection;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoClientURI;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists the content fingerprint of each merged file {@code id} so that subsequent incremental merges can detect
+ * which ids changed.
+ * <p>
+ * A full merge stages the fingerprints of all files in a separate collection as they are merged, and only replaces the
+ * current fingerprints with them once the merged files are written, so the fingerprints always describe the
+ * {@code File} collection.
+ */
+@Slf4j
+public class RepositoryFileFingerprints extends AbstractJongoComponent {
+
+  /**
+   * Constants.
+   */
+  private static final int BATCH_SIZE = 1000;
+  private static final String STAGING_SUFFIX = "_staging";
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final MongoCollection collection;
+  @NonNull
+  private final MongoCollection staging;
+
+  public RepositoryFileFingerprints(MongoClientURI mongoUri) {
+    super(mongoUri);
+    this.collection = getCollection(FILE_FINGERPRINT);
+    this.staging = getCollection(collection.getName() + STAGING_SUFFIX);
+  }
+
+  public boolean isEmpty() {
+    return collection.count() == 0;
+  }
+
+  /**
+   * Reads all fingerprints ordered by {@code id}.
+   */
+  public Iterator<Fingerprint> read() {
+    val documents = collection.find().sort("{_id: 1}").as(ObjectNode.class);
+
+    return transform(documents.iterator(),
+        document -> new Fingerprint(document.get("_id").textValue(), document.get("value").longValue()));
+  }
+
+  public void save(@NonNull Map<String, Long> fingerprints) {
+    log.info("Saving {} fingerprints...", formatCount(fingerprints.size()));
+    for (val batch : partition(fingerprints.entrySet(), BATCH_SIZE)) {
+      val bulk = collection.getDBCollection().initializeUnorderedBulkOperation();
+      for (val fingerprint : batch) {
+        val id = new BasicDBObject("_id", fingerprint.getKey());
+        bulk.find(id).upsert().replaceOne(new BasicDBObject("_id", fingerprint.getKey())
+            .append("value", fingerprint.getValue()));
+      }
+
+      bulk.execute();
+    }
+  }
+
+  public void remove(@NonNull Set<String> ids) {
+    log.info("Removing {} fingerprints...", formatCount(ids.size()));
+    for (val batch : partition(ids, BATCH_SIZE)) {
+      collection.remove("{_id: {$in: #}}", batch);
+    }
+  }
+
+  public void clear() {
+    clearDocuments(FILE_FINGERPRINT);
+  }
+
+  /**
+   * Discards any fingerprints staged by a previous full merge that did not complete.
+   */
+  public void clearStaged() {
+    staging.drop();
+  }
+
+  /**
+   * Adds the supplied fingerprints to those staged to replace the current fingerprints.
+   */
+  public void stage(@NonNull Map<String, Long> fingerprints) {
+    if (fingerprints.isEmpty()) {
+      return;
+    }
+
+    val bulk = staging.getDBCollection().initializeUnorderedBulkOperation();
+    for (val fingerprint : fingerprints.entrySet()) {
+      bulk.insert(new BasicDBObject("_id", fingerprint.getKey()).append("value", fingerprint.getValue()));
+    }
+
+    bulk.execute();
+  }
+
+  /**
+   * Replaces the current fingerprints with the staged fingerprints.
+   */
+  public void commitStaged() {
+    val stagedCount = staging.count();
+    log.info("Replacing fingerprints with {} staged fingerprints...", formatCount(stagedCount));
+    if (stagedCount == 0) {
+      clear();
+      return;
+    }
+
+    staging.getDBCollection().rename(collection.getName(), true);
+  }
+
+  @Value
+  public static class Fingerprint {
+
+    String id;
+    long value;
+
+  }
+
+}
@@ -20,9 +20,17 @@ package org.icgc.dcc.repository.client.core;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Stopwatch.createStarted;
 import static com.google.common.base.Strings.repeat;
-
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
+import static org.icgc.dcc.repository.core.model.RepositoryCollection.FILE;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.time;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.icgc.dcc.common.core.mail.Mailer;
 import org.icgc.dcc.common.core.report.ReportEmail;
@@ -30,8 +38,11 @@ import org.icgc.dcc.repository.aws.AWSImporter;
 import org.icgc.dcc.repository.cghub.CGHubImporter;
 import org.icgc.dcc.repository.collab.CollabImporter;
 import org.icgc.dcc.repository.core.RepositoryFileContext;
+import org.icgc.dcc.repository.core.RepositoryRunManifest;
 import org.icgc.dcc.repository.core.RepositorySourceFileImporter;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.core.util.RepositoryMetrics;
+import org.icgc.dcc.repository.core.writer.AsyncRepositoryFileWriter;
 import org.icgc.dcc.repository.core.writer.RepositoryFileWriter;
 import org.icgc.dcc.repository.ega.pcawg.EGAPCAWGImporter;
 import org.icgc.dcc.repository.gdc.GDCImporter;
@@ -44,6 +55,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.Cleanup;
 import lombok.Getter;
@@ -65,6 +78,11 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class RepositoryImporter {
 
+  /**
+   * Constants.
+   */
+  private static final DateTimeFormatter METRICS_FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HHmmss");
+
   /**
    * Import steps
    */
@@ -102,10 +120,22 @@ public class RepositoryImporter {
   public void execute(@NonNull Set<Step> steps) {
     log.info("Running steps {} using sources {}", steps, context.getSources());
 
+    // Fusing streams merged files straight into the index so the two steps are reported as one. This requires all
+    // files so it is not compatible with an incremental merge.
+    val settings = context.getSettings();
+    val incremental = settings.isIncremental();
+    val fused = settings.isFused() && !incremental && steps.contains(Step.MERGE) && steps.contains(Step.INDEX);
+    if (settings.isFused() && incremental) {
+      log.warn("*** Fused merge and index is disabled for incremental merges");
+    }
+
     int stepNumber = 1;
-    val stepCount = steps.size();
+    val stepCount = fused ? steps.size() - 1 : steps.size();
     val watch = createStarted();
     try {
+      // Records completed work so that a failed run can be resumed
+      @Cleanup
+      val manifest = new RepositoryRunManifest(context.getMongoUri(), settings.isResume());
 
       //
       // Import
@@ -116,7 +146,9 @@ public class RepositoryImporter {
       } else {
         // Write and always continue if an exception
         logStep(stepNumber++, stepCount, "Importing sources");
-        writeSourceFiles();
+        val stepWatch = createStarted();
+        writeSourceFiles(manifest);
+        time("step.import", stepWatch);
       }
 
       //
@@ -125,20 +157,29 @@ public class RepositoryImporter {
 
       if (!steps.contains(Step.MERGE)) {
         log.warn("*** Skipping merge!");
+      } else if (manifest.isMerged()) {
+        log.warn("*** Skipping merge completed by the previous run!");
+      } else if (fused) {
+        logStep(stepNumber++, stepCount, "Merging and indexing files");
+        val stepWatch = createStarted();
+        manifest.startMerge();
+        mergeAndIndexFiles(manifest);
+        manifest.markMerged();
+        time("step.merge-index", stepWatch);
+      } else if (incremental) {
+        logStep(stepNumber++, stepCount, "Merging changed files");
+        val stepWatch = createStarted();
+        manifest.startMerge();
+        mergeChangedFiles();
+        manifest.markMerged();
+        time("step.merge", stepWatch);
       } else {
         logStep(stepNumber++, stepCount, "Merging files");
-
-        // Collect
-        val files = collectFiles();
-
-        // Combine
-        val combinedFiles = combineFiles(files);
-
-        // Filter
-        val filteredFiles = filterFiles(combinedFiles);
-
-        // Write
-        writeFiles(filteredFiles);
+        val stepWatch = createStarted();
+        manifest.startMerge();
+        mergeFiles();
+        manifest.markMerged();
+        time("step.merge", stepWatch);
       }
 
       //
@@ -147,10 +188,16 @@ public class RepositoryImporter {
 
       if (!steps.contains(Step.INDEX)) {
         log.warn("*** Skipping index!");
-      } else {
+      } else if (!fused) {
         // Index
         logStep(stepNumber++, stepCount, "Indexing files");
-        indexFiles();
+        val stepWatch = createStarted();
+        indexFiles(manifest);
+        time("step.index", stepWatch);
+      }
+
+      if (context.getReport().getExceptionCount() == 0) {
+        manifest.markCompleted();
       }
     } catch (Exception e) {
       reportException("Unknown exception processing", e);
@@ -162,42 +209,166 @@ public class RepositoryImporter {
     checkState(exceptions.isEmpty(), "Exception(s) processing %s", exceptions);
   }
 
-  private void writeSourceFiles() {
-    val importers = createImporters(context);
-
-    int sourceNumber = 1;
-    val sourceCount = context.getSources().size();
-    for (val importer : importers) {
-      val active = context.isSourceActive(importer.getSource());
-      if (active) {
-        try {
-          log.info(repeat("-", 80));
-          log.info("[{}/{}] Import: {}", sourceNumber++, sourceCount, importer.getSource());
-          log.info(repeat("-", 80));
-
-          // Perform import of source
-          importer.execute();
-        } catch (Exception e) {
-          reportException(String.format("Error processing '%s': %s", importer.getSource(), e.getMessage()), e);
-        }
+  private void writeSourceFiles(RepositoryRunManifest manifest) {
+    val importers = createImporters(context).stream()
+        .filter(importer -> context.isSourceActive(importer.getSource()))
+        .filter(importer -> !isImported(importer, manifest))
+        .collect(toImmutableList());
+
+    val importThreads = context.getSettings().getImportThreads();
+    if (importThreads > 1) {
+      importSources(importers, importThreads, manifest);
+    } else {
+      int sourceNumber = 1;
+      for (val importer : importers) {
+        importSource(importer, sourceNumber++, importers.size(), manifest);
       }
     }
   }
 
+  private boolean isImported(RepositorySourceFileImporter importer, RepositoryRunManifest manifest) {
+    val imported = manifest.isSourceImported(importer.getSource());
+    if (imported) {
+      log.warn("*** Skipping import of '{}' completed by the previous run!", importer.getSource());
+    }
+
+    return imported;
+  }
+
+  @SneakyThrows
+  private void importSources(List<RepositorySourceFileImporter> importers, int importThreads,
+      RepositoryRunManifest manifest) {
+    log.info("Importing {} sources using {} threads...", importers.size(), importThreads);
+    val executor = newFixedThreadPool(importThreads, new ThreadFactoryBuilder().setNameFormat("import-%d").build());
+
+    try {
+      val sourceNumber = new AtomicInteger(1);
+      val futures = importers.stream()
+          .map(importer -> executor.submit(
+              () -> importSource(importer, sourceNumber.getAndIncrement(), importers.size(), manifest)))
+          .collect(toImmutableList());
+
+      // Errors are isolated and reported per source so this only waits for completion
+      for (val future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void importSource(RepositorySourceFileImporter importer, int sourceNumber, int sourceCount,
+      RepositoryRunManifest manifest) {
+    try {
+      log.info(repeat("-", 80));
+      log.info("[{}/{}] Import: {}", sourceNumber, sourceCount, importer.getSource());
+      log.info(repeat("-", 80));
+
+      // Perform import of source
+      importer.execute();
+      manifest.markSourceImported(importer.getSource());
+    } catch (Exception e) {
+      reportException(String.format("Error processing '%s': %s", importer.getSource(), e.getMessage()), e);
+    }
+  }
+
   private void reportException(final java.lang.String message, Exception e) {
     log.error(message, e);
-    context.getReport().addError(message);
-    context.getReport().addException(e);
+    val report = context.getReport();
+    synchronized (report) {
+      report.addError(message);
+      report.addException(e);
+    }
   }
 
-  private Iterable<Set<RepositoryFile>> collectFiles() {
+  @SneakyThrows
+  private void mergeFiles() {
+    @Cleanup
     val collector = new RepositoryFileCollector(context);
-    return collector.collectFiles();
+    @Cleanup
+    val fingerprints = new RepositoryFileFingerprints(context.getMongoUri());
+
+    // Collect, recording fingerprints so that a later incremental merge can detect changes
+    val files = new RepositoryFileChangeDetector(fingerprints).recordFingerprints(collector.collectFiles());
+
+    // Combine
+    @Cleanup
+    val combiner = new RepositoryFileCombiner(context);
+    val combinedFiles = combiner.combineFiles(files);
+
+    // Filter
+    val filteredFiles = filterFiles(combinedFiles);
+
+    // Write
+    writeFiles(filteredFiles);
+
+    // Only replace fingerprints once the File collection is consistent with them
+    fingerprints.commitStaged();
   }
 
-  private Iterable<RepositoryFile> combineFiles(Iterable<Set<RepositoryFile>> files) {
+  @SneakyThrows
+  private void mergeAndIndexFiles(RepositoryRunManifest manifest) {
+    @Cleanup
+    val collector = new RepositoryFileCollector(context);
+    @Cleanup
+    val fingerprints = new RepositoryFileFingerprints(context.getMongoUri());
+
+    // Collect, combine and filter, recording fingerprints so that a later incremental merge can detect changes
+    val collectedFiles = new RepositoryFileChangeDetector(fingerprints).recordFingerprints(collector.collectFiles());
+    @Cleanup
+    val combiner = new RepositoryFileCombiner(context);
+    val files = filterFiles(combiner.combineFiles(collectedFiles));
+
+    // Write in the background while indexing
+    @Cleanup
+    val indexer = createIndexer(manifest);
+    val writer = new AsyncRepositoryFileWriter(createWriter());
+    try {
+      indexer.indexFiles(writer.tee(files));
+    } catch (Throwable t) {
+      // Keep the previous File collection rather than committing a partial one
+      writer.abort();
+      throw t;
+    }
+
+    writer.close();
+
+    // Only publish the index and replace fingerprints once the File collection is consistent with them
+    indexer.aliasIndex();
+    fingerprints.commitStaged();
+  }
+
+  @SneakyThrows
+  private void mergeChangedFiles() {
+    @Cleanup
+    val fingerprints = new RepositoryFileFingerprints(context.getMongoUri());
+    if (fingerprints.isEmpty()) {
+      // Nothing to compare against so everything would be considered changed
+      log.warn("*** No fingerprints from a previous merge. Performing a full merge...");
+      mergeFiles();
+      return;
+    }
+
+    @Cleanup
+    val collector = new RepositoryFileCollector(context);
+    @Cleanup
+    val writer = createWriter();
+    @Cleanup
     val combiner = new RepositoryFileCombiner(context);
-    return combiner.combineFiles(files);
+
+    // Collect only changed files
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+    val files = detector.detectChanges(collector.collectFiles());
+
+    // Combine, filter and write
+    val writtenIds = writer.upsert(filterFiles(combiner.combineFiles(files)));
+
+    // Remove files that were deleted from all sources or that are now filtered
+    writer.remove(Sets.difference(detector.getAffectedIds(), writtenIds));
+
+    // Only record fingerprints once the File collection is consistent with them
+    fingerprints.save(detector.getChangedFingerprints());
+    fingerprints.remove(detector.getDeletedIds());
   }
 
   private Iterable<RepositoryFile> filterFiles(Iterable<RepositoryFile> files) {
@@ -208,23 +379,33 @@ public class RepositoryImporter {
   @SneakyThrows
   private void writeFiles(Iterable<RepositoryFile> files) {
     @Cleanup
-    val writer = new RepositoryFileWriter(context.getMongoUri());
+    val writer = createWriter();
     writer.write(files);
   }
 
+  private RepositoryFileWriter createWriter() {
+    val settings = context.getSettings();
+    return new RepositoryFileWriter(context.getMongoUri(), FILE, settings.getWriteBatchSize(),
+        settings.getWriteThreads());
+  }
+
   @SneakyThrows
-  private void indexFiles() {
+  private void indexFiles(RepositoryRunManifest manifest) {
     @Cleanup
-    val indexer = new RepositoryFileIndexer(
-        context.getMongoUri(), context.getEsUri(), context.getArchiveUri(),
-        context.getIndexAlias());
-
+    val indexer = createIndexer(manifest);
     indexer.indexFiles();
   }
 
+  private RepositoryFileIndexer createIndexer(RepositoryRunManifest manifest) {
+    return new RepositoryFileIndexer(
+        context.getMongoUri(), context.getEsUri(), context.getArchiveUri(),
+        context.getIndexAlias(), manifest, context.getSettings().getReadPartitions());
+  }
+
   private void report(Stopwatch watch) {
     val report = context.getReport();
     report.addTimer(watch);
+    time("run", watch);
 
     val success = report.getExceptionCount() == 0;
     if (success) {
@@ -239,10 +420,35 @@ public class RepositoryImporter {
 
     val message = new ReportEmail("DCC Repository", report);
     mailer.sendMail(message);
+
+    reportMetrics();
+  }
+
+  private void reportMetrics() {
+    log.info("Metrics: {}", RepositoryMetrics.toJson());
+
+    val metricsDir = context.getMetricsDir();
+    if (metricsDir == null) {
+      return;
+    }
+
+    try {
+      metricsDir.mkdirs();
+      val timestamp = METRICS_FILE_DATE_FORMAT.format(LocalDateTime.now());
+      val metricsFile = new File(metricsDir, "metrics." + timestamp + ".json");
+
+      log.info("Writing metrics to '{}'...", metricsFile);
+      RepositoryMetrics.writeJson(metricsFile);
+    } catch (Exception e) {
+      // Metrics are diagnostic only so they should never fail the run
+      log.error("Error writing metrics: ", e);
+    }
   }
 
   private static List<RepositorySourceFileImporter> createImporters(RepositoryFileContext context) {
-    // The list order will be execution order, subject to activation
+    // The list order will be execution order, subject to activation. No importer reads the output of another (each
+    // reads its own upstream and writes its own collection), so there are no ordering constraints when importing
+    // concurrently.
     return ImmutableList.of(
         new PCAWGImporter(context),
         new GDCImporter(context),
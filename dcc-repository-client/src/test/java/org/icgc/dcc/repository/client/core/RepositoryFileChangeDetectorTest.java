@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.client.core;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.repository.core.RepositoryFileContextBuilder.getLocalMongoClientUri;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.icgc.dcc.repository.client.core.RepositoryFileFingerprints.Fingerprint;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import lombok.Cleanup;
+import lombok.val;
+
+public class RepositoryFileChangeDetectorTest {
+
+  @Test
+  public void testDetectChanges() throws IOException {
+    @Cleanup
+    val previous = recordAll(group("a", "x1"), group("b", "x2"), group("d", "x4"));
+    @Cleanup
+    val fingerprints = new StubFingerprints(previous.getStaged());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    val changed = ImmutableList.copyOf(
+        detector.detectChanges(ImmutableList.of(group("a", "x1"), group("b", "x2-changed"), group("c", "x3"))));
+
+    assertThat(getIds(changed)).containsExactly("b", "c");
+    assertThat(detector.getChangedFingerprints().keySet()).containsOnly("b", "c");
+    assertThat(detector.getDeletedIds()).containsOnly("d");
+    assertThat(detector.getAffectedIds()).containsOnly("b", "c", "d");
+  }
+
+  @Test
+  public void testDetectChangesWithoutPrevious() throws IOException {
+    @Cleanup
+    val fingerprints = new StubFingerprints(ImmutableList.of());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    val changed = ImmutableList.copyOf(detector.detectChanges(ImmutableList.of(group("a", "x1"), group("b", "x2"))));
+
+    assertThat(getIds(changed)).containsExactly("a", "b");
+    assertThat(detector.getDeletedIds()).isEmpty();
+  }
+
+  @Test
+  public void testDetectChangesSkipsGroupsWithoutId() throws IOException {
+    @Cleanup
+    val fingerprints = new StubFingerprints(ImmutableList.of());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    val changed = ImmutableList.copyOf(detector.detectChanges(ImmutableList.of(group(null, "x0"), group("a", "x1"))));
+
+    assertThat(getIds(changed)).containsExactly("a");
+    assertThat(detector.getChangedFingerprints().keySet()).containsOnly("a");
+  }
+
+  @Test
+  public void testDetectChangesIgnoresOrderWithinGroup() throws IOException {
+    val first = new RepositoryFile().setId("a").setObjectId("x1").setAccess("open");
+    val second = new RepositoryFile().setId("a").setObjectId("x1").setAccess("controlled");
+
+    @Cleanup
+    val previous = recordAll(ImmutableSet.of(first, second));
+    @Cleanup
+    val fingerprints = new StubFingerprints(previous.getStaged());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    val changed = ImmutableList.copyOf(detector.detectChanges(ImmutableList.of(ImmutableSet.of(second, first))));
+
+    assertThat(changed).isEmpty();
+    assertThat(detector.getAffectedIds()).isEmpty();
+  }
+
+  @Test
+  public void testRecordFingerprintsPassesAllGroups() throws IOException {
+    @Cleanup
+    val fingerprints = new StubFingerprints(ImmutableList.of());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    val recorded = ImmutableList.copyOf(
+        detector.recordFingerprints(ImmutableList.of(group(null, "x0"), group("a", "x1"), group("b", "x2"))));
+
+    assertThat(recorded).hasSize(3);
+    assertThat(fingerprints.getStaged().stream().map(Fingerprint::getId).collect(toList())).containsExactly("a", "b");
+  }
+
+  @SafeVarargs
+  private static StubFingerprints recordAll(Set<RepositoryFile>... groups) {
+    val fingerprints = new StubFingerprints(ImmutableList.of());
+    val detector = new RepositoryFileChangeDetector(fingerprints);
+
+    // Fingerprints are recorded as groups are consumed
+    ImmutableList.copyOf(detector.recordFingerprints(ImmutableList.copyOf(groups)));
+
+    return fingerprints;
+  }
+
+  private static Set<RepositoryFile> group(String id, String objectId) {
+    return Sets.newHashSet(new RepositoryFile().setId(id).setObjectId(objectId));
+  }
+
+  private static List<String> getIds(List<Set<RepositoryFile>> groups) {
+    val ids = Lists.<String> newArrayList();
+    for (val group : groups) {
+      ids.add(group.iterator().next().getId());
+    }
+
+    return ids;
+  }
+
+  /**
+   * Keeps fingerprints in memory. The Mongo client of the base class is created but never connected to.
+   */
+  private static class StubFingerprints extends RepositoryFileFingerprints {
+
+    /**
+     * State.
+     */
+    private final List<Fingerprint> previous;
+    private final Map<String, Long> staged = Maps.newTreeMap();
+
+    StubFingerprints(List<Fingerprint> previous) {
+      super(getLocalMongoClientUri("dcc-repository-test"));
+      this.previous = previous;
+    }
+
+    @Override
+    public Iterator<Fingerprint> read() {
+      return previous.iterator();
+    }
+
+    @Override
+    public void clearStaged() {
+      staged.clear();
+    }
+
+    @Override
+    public void stage(Map<String, Long> fingerprints) {
+      staged.putAll(fingerprints);
+    }
+
+    List<Fingerprint> getStaged() {
+      // Ordered by id, as read from Mongo
+      val fingerprints = Lists.<Fingerprint> newArrayList();
+      staged.forEach((id, value) -> fingerprints.add(new Fingerprint(id, value)));
+
+      return fingerprints;
+    }
+
+  }
+
+}
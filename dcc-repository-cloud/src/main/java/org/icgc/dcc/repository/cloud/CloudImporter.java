@@ -18,8 +18,10 @@
 package org.icgc.dcc.repository.cloud;
 
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.cloud.core.CloudFileProcessor;
 import org.icgc.dcc.repository.cloud.s3.CloudS3BucketReader;
@@ -43,7 +45,7 @@ public abstract class CloudImporter extends GenericRepositorySourceFileImporter
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     log.info("Reading completed transfer jobs...");
     val completedJobs = readCompletedJobs();
     log.info("Read {} completed transfer jobs", formatCount(completedJobs));
@@ -54,9 +56,8 @@ public abstract class CloudImporter extends GenericRepositorySourceFileImporter
 
     log.info("Processing files...");
     val files = processFiles(completedJobs, objectSummaries);
-    log.info("Processed {} files", formatCount(files));
 
-    return files;
+    return stream(files);
   }
 
   private List<ObjectNode> readCompletedJobs() {
@@ -17,19 +17,40 @@
  */
 package org.icgc.dcc.repository.core;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static lombok.AccessLevel.PACKAGE;
 import static lombok.AccessLevel.PRIVATE;
-import static org.icgc.dcc.repository.core.util.RepositoryFiles.qualifyDonorId;
-
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.DONOR;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.FILE;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.SAMPLE;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.SPECIMEN;
+import static org.icgc.dcc.repository.core.util.RepositoryIdRequests.join;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.icgc.dcc.common.core.report.BufferedReport;
 import org.icgc.dcc.common.tcga.core.TCGAMappings;
+import org.icgc.dcc.common.tcga.reader.TCGAMappingsReader;
 import org.icgc.dcc.id.client.core.IdClient;
+import org.icgc.dcc.repository.core.meta.CodeListService;
+import org.icgc.dcc.repository.core.meta.MetadataClient;
+import org.icgc.dcc.repository.core.meta.MetadataService;
 import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedId;
+import org.icgc.dcc.repository.core.util.RepositoryIdCache;
+import org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType;
+import org.icgc.dcc.repository.core.util.RepositoryIdRequests;
 
+import com.google.common.collect.Maps;
 import com.mongodb.MongoClientURI;
 
 import lombok.Getter;
@@ -38,7 +59,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.val;
 
 @RequiredArgsConstructor(access = PACKAGE)
-public class RepositoryFileContext {
+public class RepositoryFileContext implements Closeable {
 
   /**
    * Configuration.
@@ -62,6 +83,13 @@ public class RepositoryFileContext {
   private final Set<RepositorySource> sources;
   @Getter
   private final boolean readOnly;
+  @Getter
+  @NonNull
+  private final RepositoryFileSettings settings;
+  @Getter
+  private final File metricsDir;
+  @Getter
+  private final File codeListsFile;
 
   /**
    * Metadata.
@@ -75,7 +103,8 @@ public class RepositoryFileContext {
   @NonNull
   private final IdClient idClient;
   @NonNull
-  private final TCGAMappings tcgaMappings;
+  private final RepositoryIdRequests idRequests;
+  private final RepositoryIdCache idCache;
   @NonNull
   private final RepositoryIdResolver pcawgIdResolver;
   private final RepositoryIdResolver dccIdResolver;
@@ -87,20 +116,45 @@ public class RepositoryFileContext {
    * Data.
    */
   @Getter(lazy = true, value = PRIVATE)
-  private final Set<String> pcawgSubmittedDonorIds = pcawgIdResolver.resolveIds();
+  private final TCGAMappings tcgaMappings = new TCGAMappingsReader().readMappings();
   @Getter(lazy = true, value = PRIVATE)
-  private final Set<String> dccSubmittedDonorIds = dccIdResolver.resolveIds();
+  private final RepositorySubmittedDonorIds pcawgSubmittedDonorIds = pcawgIdResolver.resolveIds();
+  @Getter(lazy = true, value = PRIVATE)
+  private final RepositorySubmittedDonorIds dccSubmittedDonorIds = dccIdResolver.resolveIds();
+  @Getter(lazy = true)
+  private final MetadataService metadataService =
+      new MetadataService(new MetadataClient(), settings.isMetadataPrefetch());
+  @Getter(lazy = true)
+  private final CodeListService codeListService = new CodeListService(codeListsFile);
+
+  @Override
+  public void close() throws IOException {
+    if (idCache != null) {
+      idCache.close();
+    }
+  }
 
   public boolean isSourceActive(@NonNull RepositorySource source) {
     return sources.contains(source);
   }
 
+  public void reportInfo(String info, Object... args) {
+    // Sources may be imported and files combined concurrently
+    synchronized (report) {
+      report.addInfo(info, args);
+    }
+  }
+
   public void reportError(String error, Object... args) {
-    report.addError(error, args);
+    synchronized (report) {
+      report.addError(error, args);
+    }
   }
 
   public void reportWarning(String warning, Object... args) {
-    report.addWarning(warning, args);
+    synchronized (report) {
+      report.addWarning(warning, args);
+    }
   }
 
   public String getPrimarySite(@NonNull String projectCode) {
@@ -108,21 +162,21 @@ public class RepositoryFileContext {
   }
 
   public Map<String, String> getTCGAUUIDs(@NonNull Set<String> tcgaBarcodes) {
-    return tcgaMappings.getUUIDs(tcgaBarcodes);
+    return getTcgaMappings().getUUIDs(tcgaBarcodes);
   }
 
   public Map<String, String> getTCGABarcodes(@NonNull Set<String> tcgaUuids) {
-    return tcgaMappings.getBarcodes(tcgaUuids);
+    return getTcgaMappings().getBarcodes(tcgaUuids);
   }
 
   public boolean isDCCSubmittedDonorId(@NonNull String projectCode, @NonNull String submittedDonorId) {
-    if (getDccSubmittedDonorIds().contains(qualifyDonorId(projectCode, submittedDonorId))) {
+    if (getDccSubmittedDonorIds().contains(projectCode, submittedDonorId)) {
       return true;
     }
 
     // Special case for TCGA and TARGET projects that submit legacy barcodes to DCC but UUIDs everywhere else
-    val translatedSubmittedDonorId = tcgaMappings.getBarcode(submittedDonorId);
-    if (getDccSubmittedDonorIds().contains(qualifyDonorId(projectCode, translatedSubmittedDonorId))) {
+    val translatedSubmittedDonorId = getTcgaMappings().getBarcode(submittedDonorId);
+    if (getDccSubmittedDonorIds().contains(projectCode, translatedSubmittedDonorId)) {
       return true;
     }
 
@@ -130,75 +184,184 @@ public class RepositoryFileContext {
   }
 
   public boolean isPCAWGSubmittedDonorId(@NonNull String projectCode, @NonNull String submittedDonorId) {
-    return getPcawgSubmittedDonorIds().contains(qualifyDonorId(projectCode, submittedDonorId));
+    return getPcawgSubmittedDonorIds().contains(projectCode, submittedDonorId);
   }
 
   public String getDonorId(@NonNull String submittedDonorId, @NonNull String submittedProjectId) {
-    return idClient.getDonorId(submittedDonorId, submittedProjectId).orElse(null);
+    return join(getDonorIdAsync(submittedDonorId, submittedProjectId));
+  }
+
+  public CompletableFuture<String> getDonorIdAsync(@NonNull String submittedDonorId,
+      @NonNull String submittedProjectId) {
+    return requestId(DONOR, false, submittedDonorId, submittedProjectId,
+        () -> idClient.getDonorId(submittedDonorId, submittedProjectId).orElse(null));
   }
 
   public String ensureDonorId(@NonNull String submittedDonorId, @NonNull String submittedProjectId) {
     try {
-      if (readOnly) {
-        return getDonorId(submittedDonorId, submittedProjectId);
-      }
-
-      return idClient.createDonorId(submittedDonorId, submittedProjectId);
+      return join(ensureDonorIdAsync(submittedDonorId, submittedProjectId));
     } catch (Exception e) {
       throw new RuntimeException("Error ensuring donor id for submittedDonorId=" + submittedDonorId
           + ", submittedProjectId=" + submittedProjectId, e);
     }
   }
 
+  public CompletableFuture<String> ensureDonorIdAsync(@NonNull String submittedDonorId,
+      @NonNull String submittedProjectId) {
+    if (readOnly) {
+      return getDonorIdAsync(submittedDonorId, submittedProjectId);
+    }
+
+    return requestId(DONOR, true, submittedDonorId, submittedProjectId,
+        () -> idClient.createDonorId(submittedDonorId, submittedProjectId));
+  }
+
   public String getSpecimenId(@NonNull String submittedSpecimenId, @NonNull String submittedProjectId) {
-    return idClient.getSpecimenId(submittedSpecimenId, submittedProjectId).orElse(null);
+    return join(getSpecimenIdAsync(submittedSpecimenId, submittedProjectId));
+  }
+
+  public CompletableFuture<String> getSpecimenIdAsync(@NonNull String submittedSpecimenId,
+      @NonNull String submittedProjectId) {
+    return requestId(SPECIMEN, false, submittedSpecimenId, submittedProjectId,
+        () -> idClient.getSpecimenId(submittedSpecimenId, submittedProjectId).orElse(null));
   }
 
   public String ensureSpecimenId(@NonNull String submittedSpecimenId, @NonNull String submittedProjectId) {
     try {
-      if (readOnly) {
-        return getSpecimenId(submittedSpecimenId, submittedProjectId);
-      }
-
-      return idClient.createSpecimenId(submittedSpecimenId, submittedProjectId);
-
+      return join(ensureSpecimenIdAsync(submittedSpecimenId, submittedProjectId));
     } catch (Exception e) {
       throw new RuntimeException("Error ensuring specimen id for submittedSpecimenId=" + submittedSpecimenId
           + ", submittedProjectId=" + submittedProjectId, e);
     }
   }
 
+  public CompletableFuture<String> ensureSpecimenIdAsync(@NonNull String submittedSpecimenId,
+      @NonNull String submittedProjectId) {
+    if (readOnly) {
+      return getSpecimenIdAsync(submittedSpecimenId, submittedProjectId);
+    }
+
+    return requestId(SPECIMEN, true, submittedSpecimenId, submittedProjectId,
+        () -> idClient.createSpecimenId(submittedSpecimenId, submittedProjectId));
+  }
+
   public String getSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
-    return idClient.getSampleId(submittedSampleId, submittedProjectId).orElse(null);
+    return join(getSampleIdAsync(submittedSampleId, submittedProjectId));
+  }
+
+  public CompletableFuture<String> getSampleIdAsync(@NonNull String submittedSampleId,
+      @NonNull String submittedProjectId) {
+    return requestId(SAMPLE, false, submittedSampleId, submittedProjectId,
+        () -> idClient.getSampleId(submittedSampleId, submittedProjectId).orElse(null));
   }
 
   public String ensureSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
     try {
-      if (readOnly) {
-        return getSampleId(submittedSampleId, submittedProjectId);
-      }
-
-      return idClient.createSampleId(submittedSampleId, submittedProjectId);
+      return join(ensureSampleIdAsync(submittedSampleId, submittedProjectId));
     } catch (Exception e) {
       throw new RuntimeException("Error ensuring sample id for submittedSampleId=" + submittedSampleId
           + ", submittedProjectId=" + submittedProjectId, e);
     }
   }
 
+  public CompletableFuture<String> ensureSampleIdAsync(@NonNull String submittedSampleId,
+      @NonNull String submittedProjectId) {
+    if (readOnly) {
+      return getSampleIdAsync(submittedSampleId, submittedProjectId);
+    }
+
+    return requestId(SAMPLE, true, submittedSampleId, submittedProjectId,
+        () -> idClient.createSampleId(submittedSampleId, submittedProjectId));
+  }
+
+  /**
+   * Gets or creates the donor ids of the supplied submitted ids with up to {@code idThreads} requests in flight.
+   * 
+   * @return the donor id keyed by submitted id, or {@code null} for submitted ids without one in read-only mode
+   */
+  public Map<RepositorySubmittedId, String> ensureDonorIds(@NonNull Set<RepositorySubmittedId> submittedIds) {
+    return ensureIds(submittedIds, id -> ensureDonorIdAsync(id.getSubmittedId(), id.getProjectCode()));
+  }
+
+  /**
+   * @see #ensureDonorIds(Set)
+   */
+  public Map<RepositorySubmittedId, String> ensureSpecimenIds(@NonNull Set<RepositorySubmittedId> submittedIds) {
+    return ensureIds(submittedIds, id -> ensureSpecimenIdAsync(id.getSubmittedId(), id.getProjectCode()));
+  }
+
+  /**
+   * @see #ensureDonorIds(Set)
+   */
+  public Map<RepositorySubmittedId, String> ensureSampleIds(@NonNull Set<RepositorySubmittedId> submittedIds) {
+    return ensureIds(submittedIds, id -> ensureSampleIdAsync(id.getSubmittedId(), id.getProjectCode()));
+  }
+
   public String ensureFileId(@NonNull String objectId) {
     try {
-      if (readOnly) {
-        return getFileId(objectId);
-      }
-
-      return idClient.createFileId(objectId);
+      return join(ensureFileIdAsync(objectId));
     } catch (Exception e) {
       throw new RuntimeException("Error ensuring file id for objectId=" + objectId, e);
     }
   }
 
+  public CompletableFuture<String> ensureFileIdAsync(@NonNull String objectId) {
+    if (readOnly) {
+      return getFileIdAsync(objectId);
+    }
+
+    return requestId(FILE, true, objectId, null, () -> idClient.createFileId(objectId));
+  }
+
   public String getFileId(@NonNull String submittedFileId) {
-    return idClient.getFileId(submittedFileId).orElse(null);
+    return join(getFileIdAsync(submittedFileId));
+  }
+
+  public CompletableFuture<String> getFileIdAsync(@NonNull String submittedFileId) {
+    return requestId(FILE, false, submittedFileId, null, () -> idClient.getFileId(submittedFileId).orElse(null));
+  }
+
+  private CompletableFuture<String> requestId(IdType type, boolean create, String submittedId, String projectCode,
+      Supplier<String> request) {
+    if (idCache == null) {
+      return idRequests.submit(type, create, submittedId, projectCode, request);
+    }
+
+    val cachedId = idCache.get(type, submittedId, projectCode);
+    if (cachedId.isPresent()) {
+      return completedFuture(cachedId.get());
+    }
+
+    return idRequests.submit(type, create, submittedId, projectCode, () -> {
+      val id = request.get();
+      if (id != null) {
+        idCache.put(type, submittedId, projectCode, id);
+      }
+
+      return id;
+    });
+  }
+
+  private static Map<RepositorySubmittedId, String> ensureIds(Set<RepositorySubmittedId> submittedIds,
+      Function<RepositorySubmittedId, CompletableFuture<String>> ensureId) {
+    // Submit all requests up front so that they are executed concurrently
+    val futures = Maps.<RepositorySubmittedId, CompletableFuture<String>> newHashMapWithExpectedSize(
+        submittedIds.size());
+    for (val submittedId : submittedIds) {
+      futures.put(submittedId, ensureId.apply(submittedId));
+    }
+
+    // Ids may be null in read-only mode
+    val ids = Maps.<RepositorySubmittedId, String> newHashMapWithExpectedSize(futures.size());
+    for (val entry : futures.entrySet()) {
+      try {
+        ids.put(entry.getKey(), join(entry.getValue()));
+      } catch (Exception e) {
+        throw new RuntimeException("Error ensuring id for " + entry.getKey(), e);
+      }
+    }
+
+    return ids;
   }
 
 }
\ No newline at end of file
@@ -21,19 +21,22 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyMap;
 import static lombok.AccessLevel.PRIVATE;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Map;
 import java.util.Set;
 
 import org.icgc.dcc.common.core.report.BufferedReport;
 import org.icgc.dcc.common.core.util.URIs;
-import org.icgc.dcc.common.tcga.reader.TCGAMappingsReader;
 import org.icgc.dcc.id.client.core.IdClient;
 import org.icgc.dcc.id.client.http.HttpIdClient;
 import org.icgc.dcc.id.client.util.CachingIdClient;
 import org.icgc.dcc.id.client.util.HashIdClient;
 import org.icgc.dcc.repository.core.model.RepositorySource;
 import org.icgc.dcc.repository.core.reader.RepositoryProjectReader;
+import org.icgc.dcc.repository.core.util.RepositoryIdCache;
+import org.icgc.dcc.repository.core.util.RepositoryIdRequests;
+import org.icgc.dcc.repository.core.writer.RepositoryFileWriter;
 
 import com.mongodb.MongoClientURI;
 
@@ -90,6 +93,9 @@ public final class RepositoryFileContextBuilder {
   private String authToken = null;
   @Setter
   @Accessors(chain = true, fluent = true)
+  private File idCacheFile = null;
+  @Setter
+  @Accessors(chain = true, fluent = true)
   private RepositoryIdResolver pcawgIdResolver;
   @Setter
   @Accessors(chain = true, fluent = true)
@@ -100,6 +106,42 @@ public final class RepositoryFileContextBuilder {
   @Setter
   @Accessors(chain = true, fluent = true)
   private boolean readOnly = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int importThreads = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int combineThreads = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean fused = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean incremental = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean resume = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int idThreads = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int writeBatchSize = RepositoryFileWriter.DEFAULT_BATCH_SIZE;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int writeThreads = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int readPartitions = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean metadataPrefetch = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private File metricsDir = null;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private File codeListsFile = null;
 
   public static RepositoryFileContextBuilder builder() {
     return new RepositoryFileContextBuilder();
@@ -109,10 +151,30 @@ public final class RepositoryFileContextBuilder {
   public RepositoryFileContext build() {
     val primarySites = createPrimarySites();
     val idClient = createIdClient();
-    val tcgaMappings = new TCGAMappingsReader().readMappings();
+    val idRequests = createIdRequests();
+    val idCache = createIdCache();
+
+    val settings = createSettings();
 
     return new RepositoryFileContext(repoMongoUri, esUri, archiveUri, indexAlias, skipImport, sources, readOnly,
-        primarySites, idClient, tcgaMappings, pcawgIdResolver, dccIdResolver, report);
+        settings, metricsDir, codeListsFile,
+        primarySites, idClient, idRequests, idCache, pcawgIdResolver, dccIdResolver, report);
+  }
+
+  private RepositoryFileSettings createSettings() {
+    // Named so that settings of the same type cannot be swapped
+    return RepositoryFileSettings.builder()
+        .importThreads(importThreads)
+        .combineThreads(combineThreads)
+        .idThreads(idThreads)
+        .writeThreads(writeThreads)
+        .readPartitions(readPartitions)
+        .writeBatchSize(writeBatchSize)
+        .fused(fused)
+        .incremental(incremental)
+        .resume(resume)
+        .metadataPrefetch(metadataPrefetch)
+        .build();
   }
 
   private Map<String, String> createPrimarySites() {
@@ -127,6 +189,15 @@ public final class RepositoryFileContextBuilder {
     return realIds ? new CachingIdClient(new HttpIdClient(idUrl, "", authToken)) : new HashIdClient();
   }
 
+  private RepositoryIdRequests createIdRequests() {
+    return realIds ? RepositoryIdRequests.concurrent(idThreads) : RepositoryIdRequests.direct();
+  }
+
+  private RepositoryIdCache createIdCache() {
+    // Generated ids are cheap to recompute so only real ids are worth persisting
+    return realIds && idCacheFile != null ? new RepositoryIdCache(idCacheFile) : null;
+  }
+
   @SneakyThrows
   private static Map<String, String> getProjectPrimarySites(MongoClientURI geneMongoUri) {
     @Cleanup
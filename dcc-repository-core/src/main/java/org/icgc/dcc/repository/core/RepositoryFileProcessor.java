@@ -18,6 +18,7 @@
 package org.icgc.dcc.repository.core;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.Iterables.partition;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
@@ -34,15 +35,12 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-import org.icgc.dcc.common.core.meta.Resolver.CodeListsResolver;
-import org.icgc.dcc.common.core.meta.RestfulCodeListsResolver;
 import org.icgc.dcc.common.core.util.UUID5;
 import org.icgc.dcc.repository.core.meta.Entity;
-import org.icgc.dcc.repository.core.meta.MetadataClient;
-import org.icgc.dcc.repository.core.meta.MetadataService;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositoryFile.Donor;
 import org.icgc.dcc.repository.core.model.RepositoryFile.Study;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedId;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Joiner;
@@ -53,6 +51,7 @@ import com.google.common.collect.Sets;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -60,16 +59,17 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public abstract class RepositoryFileProcessor {
 
+  /**
+   * Constants.
+   */
   private static final Set<String> TRANSLATABLE_PROJECT_CODES = resolveTranslatableProjectCodes();
+  private static final int ID_BATCH_SIZE = 10_000;
 
   /**
    * Dependencies.
    */
   @NonNull
   protected final RepositoryFileContext context;
-  private final MetadataService metadataService = new MetadataService(new MetadataClient());
-  private final CodeListsResolver codeListsResolver =
-      new RestfulCodeListsResolver("https://submissions.dcc.icgc.org/ws");
 
   protected void assignStudy(Iterable<RepositoryFile> files) {
     eachFileDonor(files, donor -> {
@@ -81,37 +81,40 @@ public abstract class RepositoryFileProcessor {
   }
 
   protected void assignIds(Iterable<RepositoryFile> donorFiles) {
-    for (val donorFile : donorFiles) {
-      for (val donor : donorFile.getDonors()) {
-        val projectCode = donor.getProjectCode();
-
-        // Special case for TCGA who submits barcodes to DCC but UUIDs to PCAWG
-        val translate = TRANSLATABLE_PROJECT_CODES.contains(donor.getProjectCode());
-        val submittedDonorId =
-            translate ? donor.getOtherIdentifiers().getTcgaParticipantBarcode() : donor.getSubmittedDonorId();
-        val submittedSpecimenId =
-            translate ? donor.getOtherIdentifiers().getTcgaSampleBarcode() : donor.getSubmittedSpecimenId();
-        val submittedSampleId =
-            translate ? donor.getOtherIdentifiers().getTcgaAliquotBarcode() : donor.getSubmittedSampleId();
-        val submittedMatchedSampleId = donor.getMatchedControlSampleId();
-
-        // Get IDs or create if they don't exist. This is different than the other repos.
-        donor
-            .setDonorId(
-                submittedDonorId == null ? null : context.ensureDonorId(submittedDonorId, projectCode))
-            .setSpecimenId(
-                normalizeIds(submittedSpecimenId).stream()
-                    .map(s -> context.ensureSpecimenId(s, projectCode)).collect(toList()))
-            .setSampleId(
-                normalizeIds(submittedSampleId).stream()
-                    .map(s -> context.ensureSampleId(s, projectCode)).collect(toList()))
-            .setMatchedControlSampleId(
-                submittedMatchedSampleId == null ? null : context.ensureSampleId(submittedMatchedSampleId,
-                    projectCode));
-      }
+    // Chunked to bound the number of ids held in memory
+    for (val chunk : partition(donorFiles, ID_BATCH_SIZE)) {
+      assignChunkIds(chunk);
     }
   }
 
+  private void assignChunkIds(List<RepositoryFile> donorFiles) {
+    // Collect the distinct entities so that each is resolved once no matter how many files or donors refer to it
+    val donorIds = Sets.<RepositorySubmittedId> newHashSet();
+    val specimenIds = Sets.<RepositorySubmittedId> newHashSet();
+    val sampleIds = Sets.<RepositorySubmittedId> newHashSet();
+    eachFileDonor(donorFiles, donor -> {
+      val submitted = new SubmittedDonor(donor);
+      submitted.getDonorId().ifPresent(donorIds::add);
+      specimenIds.addAll(submitted.getSpecimenIds());
+      sampleIds.addAll(submitted.getSampleIds());
+      submitted.getMatchedSampleId().ifPresent(sampleIds::add);
+    });
+
+    // Get IDs or create if they don't exist. This is different than the other repos.
+    val donorIdMap = context.ensureDonorIds(donorIds);
+    val specimenIdMap = context.ensureSpecimenIds(specimenIds);
+    val sampleIdMap = context.ensureSampleIds(sampleIds);
+
+    eachFileDonor(donorFiles, donor -> {
+      val submitted = new SubmittedDonor(donor);
+      donor
+          .setDonorId(submitted.getDonorId().map(donorIdMap::get).orElse(null))
+          .setSpecimenId(submitted.getSpecimenIds().stream().map(specimenIdMap::get).collect(toList()))
+          .setSampleId(submitted.getSampleIds().stream().map(sampleIdMap::get).collect(toList()))
+          .setMatchedControlSampleId(submitted.getMatchedSampleId().map(sampleIdMap::get).orElse(null));
+    });
+  }
+
   protected void translateUUIDs(Iterable<RepositoryFile> donorFiles) {
     log.info("Collecting TCGA/TARGET barcodes...");
     val uuids = resolveTranslatableUUIDs(donorFiles);
@@ -125,26 +128,19 @@ public abstract class RepositoryFileProcessor {
   }
 
   protected Optional<Entity> findEntity(@NonNull String objectId) {
-    return metadataService.getEntity(objectId);
+    return context.getMetadataService().getEntity(objectId);
   }
 
   protected Optional<Entity> findIndexEntity(@NonNull Entity entity) {
-    return metadataService.getIndexEntity(entity);
+    return context.getMetadataService().getIndexEntity(entity);
   }
 
   protected Optional<Entity> findXmlEntity(@NonNull Entity entity) {
-    return metadataService.getXmlEntity(entity);
+    return context.getMetadataService().getXmlEntity(entity);
   }
 
   protected Optional<ObjectNode> findCodeList(@NonNull String name) {
-    for (val codeList : codeListsResolver.get()) {
-      val currentName = codeList.get("name").textValue();
-      if (currentName.equals(name)) {
-        return Optional.of((ObjectNode) codeList);
-      }
-    }
-
-    return Optional.empty();
+    return context.getCodeListService().getCodeList(name);
   }
 
   protected static Set<String> resolveTranslatableUUIDs(Iterable<RepositoryFile> donorFiles) {
@@ -227,4 +223,39 @@ public abstract class RepositoryFileProcessor {
     return ids;
   }
 
+  /**
+   * The submitted ids of a donor as they are known to the ID service.
+   */
+  @Value
+  private static class SubmittedDonor {
+
+    Optional<RepositorySubmittedId> donorId;
+    List<RepositorySubmittedId> specimenIds;
+    List<RepositorySubmittedId> sampleIds;
+    Optional<RepositorySubmittedId> matchedSampleId;
+
+    SubmittedDonor(Donor donor) {
+      val projectCode = donor.getProjectCode();
+
+      // Special case for TCGA who submits barcodes to DCC but UUIDs to PCAWG
+      val translate = TRANSLATABLE_PROJECT_CODES.contains(projectCode);
+      val submittedDonorId =
+          translate ? donor.getOtherIdentifiers().getTcgaParticipantBarcode() : donor.getSubmittedDonorId();
+      val submittedSpecimenId =
+          translate ? donor.getOtherIdentifiers().getTcgaSampleBarcode() : donor.getSubmittedSpecimenId();
+      val submittedSampleId =
+          translate ? donor.getOtherIdentifiers().getTcgaAliquotBarcode() : donor.getSubmittedSampleId();
+      val submittedMatchedSampleId = donor.getMatchedControlSampleId();
+
+      this.donorId = Optional.ofNullable(submittedDonorId).map(id -> new RepositorySubmittedId(id, projectCode));
+      this.specimenIds = normalizeIds(submittedSpecimenId).stream()
+          .map(id -> new RepositorySubmittedId(id, projectCode)).collect(toList());
+      this.sampleIds = normalizeIds(submittedSampleId).stream()
+          .map(id -> new RepositorySubmittedId(id, projectCode)).collect(toList());
+      this.matchedSampleId =
+          Optional.ofNullable(submittedMatchedSampleId).map(id -> new RepositorySubmittedId(id, projectCode));
+    }
+
+  }
+
 }
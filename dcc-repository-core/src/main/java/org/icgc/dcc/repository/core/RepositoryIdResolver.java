@@ -17,10 +17,10 @@
  */
 package org.icgc.dcc.repository.core;
 
-import java.util.Set;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
 
 public interface RepositoryIdResolver {
 
-  Set<String> resolveIds();
+  RepositorySubmittedDonorIds resolveIds();
 
 }
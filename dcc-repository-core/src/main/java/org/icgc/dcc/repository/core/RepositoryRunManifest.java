@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core;
+
+import static org.icgc.dcc.repository.core.model.RepositoryCollection.RUN_MANIFEST;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.util.AbstractJongoComponent;
+import org.jongo.MongoCollection;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.mongodb.MongoClientURI;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent record of the progress of the current run so that a failed run can be resumed without repeating the work
+ * that already completed.
+ * <p>
+ * Progress is recorded as each unit of work completes: per source imports, the merge and the number of documents of
+ * each type acknowledged by Elasticsearch. Completing an earlier step invalidates the progress of the later steps that
+ * depend on it. Methods are synchronized since sources may be imported and bulk requests acknowledged concurrently.
+ */
+@Slf4j
+public class RepositoryRunManifest extends AbstractJongoComponent {
+
+  /**
+   * Constants.
+   */
+  private static final String RUN_ID = "current";
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final MongoCollection collection;
+
+  /**
+   * State.
+   */
+  @NonNull
+  private final Run run;
+
+  public RepositoryRunManifest(MongoClientURI mongoUri, boolean resume) {
+    super(mongoUri);
+    this.collection = getCollection(RUN_MANIFEST);
+    this.run = resume ? resumeRun() : startRun();
+  }
+
+  public synchronized boolean isSourceImported(@NonNull RepositorySource source) {
+    return run.getImportDates().containsKey(source.getId());
+  }
+
+  public synchronized void markSourceImported(@NonNull RepositorySource source) {
+    // New source files require a new merge and index
+    run.getImportDates().put(source.getId(), new Date());
+    resetMerge();
+    save();
+  }
+
+  public synchronized boolean isMerged() {
+    return run.getMergeDate() != null;
+  }
+
+  public synchronized void startMerge() {
+    resetMerge();
+    save();
+  }
+
+  public synchronized void markMerged() {
+    run.setMergeDate(new Date());
+    save();
+  }
+
+  /**
+   * Returns the name of the index that was being built when the run failed, if any.
+   */
+  public synchronized Optional<String> getIndexName() {
+    return Optional.ofNullable(run.getIndexName());
+  }
+
+  public synchronized void startIndex(@NonNull String indexName) {
+    run.setIndexName(indexName);
+    run.getIndexedCounts().clear();
+    save();
+  }
+
+  /**
+   * Returns the number of documents by type that were acknowledged by Elasticsearch in the index being built.
+   */
+  public synchronized Map<String, Long> getIndexedCounts() {
+    return ImmutableMap.copyOf(run.getIndexedCounts());
+  }
+
+  public synchronized void markIndexed(@NonNull Map<String, Long> indexedCounts) {
+    run.getIndexedCounts().putAll(indexedCounts);
+    save();
+  }
+
+  public synchronized void markCompleted() {
+    run.setCompleteDate(new Date());
+    save();
+  }
+
+  private Run resumeRun() {
+    val run = collection.findOne("{_id: #}", RUN_ID).as(Run.class);
+    if (run == null) {
+      log.warn("*** No run manifest found. Starting a new run...");
+      return startRun();
+    }
+    if (run.getCompleteDate() != null) {
+      log.warn("*** Previous run completed on {}. Starting a new run...", run.getCompleteDate());
+      return startRun();
+    }
+
+    log.info("Resuming run started on {} with imported sources {}, merge date {} and index '{}' counts {}",
+        run.getStartDate(), run.getImportDates().keySet(), run.getMergeDate(), run.getIndexName(),
+        run.getIndexedCounts());
+
+    return run;
+  }
+
+  private Run startRun() {
+    val run = new Run();
+    run.setStartDate(new Date());
+
+    log.info("Starting run manifest...");
+    collection.update("{_id: #}", RUN_ID).upsert().with(run);
+
+    return run;
+  }
+
+  private void resetMerge() {
+    run.setMergeDate(null);
+    run.setIndexName(null);
+    run.getIndexedCounts().clear();
+  }
+
+  private void save() {
+    collection.update("{_id: #}", RUN_ID).upsert().with(run);
+  }
+
+  @Data
+  public static class Run {
+
+    Date startDate;
+    Date completeDate;
+
+    Map<String, Date> importDates = Maps.newHashMap();
+    Date mergeDate;
+
+    String indexName;
+    Map<String, Long> indexedCounts = Maps.newHashMap();
+
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.meta;
+
+import static com.google.common.base.Stopwatch.createStarted;
+import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+import org.icgc.dcc.common.core.meta.Resolver.CodeListsResolver;
+import org.icgc.dcc.common.core.meta.RestfulCodeListsResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Code lists of the submission system, loaded once and indexed by name.
+ * <p>
+ * Code lists are reloaded on the first lookup after the refresh interval has elapsed. If a snapshot file is configured,
+ * each download is saved to it and a snapshot younger than the refresh interval is used instead of downloading. A stale
+ * snapshot is still used if the submission system cannot be reached.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CodeListService {
+
+  /**
+   * Constants.
+   */
+  public static final String DEFAULT_SUBMISSION_URL = "https://submissions.dcc.icgc.org/ws";
+  public static final long DEFAULT_REFRESH_INTERVAL_NANOS = HOURS.toNanos(1);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final CodeListsResolver codeListsResolver;
+
+  /**
+   * Configuration.
+   */
+  private final File snapshotFile;
+  private final long refreshIntervalNanos;
+
+  /**
+   * State.
+   */
+  private Map<String, ObjectNode> codeLists;
+  private long loadTime;
+
+  public CodeListService(File snapshotFile) {
+    this(new RestfulCodeListsResolver(DEFAULT_SUBMISSION_URL), snapshotFile, DEFAULT_REFRESH_INTERVAL_NANOS);
+  }
+
+  public Optional<ObjectNode> getCodeList(@NonNull String name) {
+    return Optional.ofNullable(getCodeLists().get(name));
+  }
+
+  private synchronized Map<String, ObjectNode> getCodeLists() {
+    if (codeLists == null || System.nanoTime() - loadTime > refreshIntervalNanos) {
+      codeLists = indexCodeLists(loadCodeLists());
+      loadTime = System.nanoTime();
+    }
+
+    return codeLists;
+  }
+
+  private ArrayNode loadCodeLists() {
+    if (isSnapshotFresh()) {
+      log.info("Reading code lists snapshot '{}'...", snapshotFile);
+      return readSnapshot();
+    }
+
+    ArrayNode codeLists;
+    try {
+      codeLists = downloadCodeLists();
+    } catch (Exception e) {
+      if (snapshotFile == null || !snapshotFile.exists()) {
+        throw propagate(e);
+      }
+
+      log.warn("Could not download code lists. Falling back to snapshot '{}': {}", snapshotFile, e.getMessage());
+      return readSnapshot();
+    }
+
+    if (snapshotFile != null) {
+      writeSnapshot(codeLists);
+    }
+
+    return codeLists;
+  }
+
+  private ArrayNode downloadCodeLists() {
+    log.info("Downloading code lists...");
+    val watch = createStarted();
+    val codeLists = MAPPER.createArrayNode();
+    for (val codeList : codeListsResolver.get()) {
+      codeLists.add(codeList);
+    }
+
+    log.info("Downloaded {} code lists in {}", codeLists.size(), watch);
+    return codeLists;
+  }
+
+  private boolean isSnapshotFresh() {
+    if (snapshotFile == null || !snapshotFile.exists()) {
+      return false;
+    }
+
+    val age = System.currentTimeMillis() - snapshotFile.lastModified();
+    return NANOSECONDS.convert(age, MILLISECONDS) < refreshIntervalNanos;
+  }
+
+  @SneakyThrows
+  private ArrayNode readSnapshot() {
+    return MAPPER.readValue(snapshotFile, ArrayNode.class);
+  }
+
+  private void writeSnapshot(ArrayNode codeLists) {
+    File tempFile = null;
+    try {
+      val parent = snapshotFile.getAbsoluteFile().getParentFile();
+      parent.mkdirs();
+
+      // Write then rename so that a concurrent run never reads a partial snapshot
+      tempFile = File.createTempFile("code-lists", ".tmp", parent);
+      MAPPER.writeValue(tempFile, codeLists);
+      if (!tempFile.renameTo(snapshotFile)) {
+        throw new IOException("Could not rename '" + tempFile + "'");
+      }
+    } catch (IOException e) {
+      // The downloaded code lists are still usable without a snapshot
+      log.warn("Could not save code lists snapshot '{}': {}", snapshotFile, e.getMessage());
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  private static Map<String, ObjectNode> indexCodeLists(Iterable<JsonNode> codeLists) {
+    val index = Maps.<String, ObjectNode> newHashMap();
+    for (val codeList : codeLists) {
+      // First wins, as with a linear search
+      index.putIfAbsent(codeList.get("name").textValue(), (ObjectNode) codeList);
+    }
+
+    return index;
+  }
+
+}
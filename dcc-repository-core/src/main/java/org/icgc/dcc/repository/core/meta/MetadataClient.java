@@ -17,22 +17,38 @@
  */
 package org.icgc.dcc.repository.core.meta;
 
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.net.URL;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import lombok.Cleanup;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.val;
 
 /**
@@ -46,6 +62,8 @@ public class MetadataClient {
    */
   public static final String DEFAULT_SERVER_URL = "https://meta.icgc.org";
   private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final int PAGE_SIZE = 2000;
+  private static final int PREFETCH_PAGES = 4;
 
   /**
    * Configuration.
@@ -63,11 +81,23 @@ public class MetadataClient {
   }
 
   public List<Entity> findEntities() throws EntityNotFoundException {
-    return readAll("/");
+    @Cleanup
+    val entities = streamEntities();
+    return entities.collect(toImmutableList());
+  }
+
+  /**
+   * Streams all entities while a bounded number of the following pages are fetched concurrently. The stream should
+   * be closed if it is not fully consumed.
+   */
+  public Stream<Entity> streamEntities() throws EntityNotFoundException {
+    return streamAll("/");
   }
 
   public List<Entity> findEntitiesByGnosId(@NonNull String gnosId) throws EntityNotFoundException {
-    return readAll("?gnosId=" + gnosId);
+    @Cleanup
+    val entities = streamAll("?gnosId=" + gnosId);
+    return entities.collect(toImmutableList());
   }
 
   @SneakyThrows
@@ -79,29 +109,52 @@ public class MetadataClient {
     }
   }
 
-  @SneakyThrows
-  private List<Entity> readAll(@NonNull String path) {
-    val results = Lists.<Entity> newArrayList();
-    boolean last = false;
-    int pageNumber = 0;
+  private Stream<Entity> streamAll(@NonNull String path) {
+    val pages = new PageReader(path);
+    val ids = Sets.<String> newHashSet();
 
+    return stream(() -> pages)
+        .flatMap(page -> page.getEntities().stream())
+        // Remove potential duplicates due to inserts on paging:
+        // See https://jira.oicr.on.ca/browse/COL-491
+        .filter(entity -> ids.add(entity.getId()))
+        .onClose(pages::close);
+  }
+
+  /**
+   * Reads a page with the streaming API so that entities are bound directly without an intermediate tree.
+   */
+  @SneakyThrows
+  private Page readPage(String path, int pageNumber) {
+    val url = resolveUrl(path + (path.contains("?") ? "&" : "?") + "size=" + PAGE_SIZE + "&page=" + pageNumber);
     try {
-      while (!last) {
-        val url = resolveUrl(path + (path.contains("?") ? "&" : "?") + "size=2000&page=" + pageNumber);
-        val result = MAPPER.readValue(url, ObjectNode.class);
-        last = result.path("last").asBoolean();
-        List<Entity> page = MAPPER.convertValue(result.path("content"), new TypeReference<ArrayList<Entity>>() {});
-
-        results.addAll(page);
-        pageNumber++;
+      @Cleanup
+      val parser = MAPPER.getFactory().createParser(url);
+      checkState(parser.nextToken() == START_OBJECT, "Expected a page object from %s", url);
+
+      val entities = Lists.<Entity> newArrayListWithCapacity(PAGE_SIZE);
+      boolean last = false;
+      int totalPages = 0;
+      while (parser.nextToken() == FIELD_NAME) {
+        val fieldName = parser.getCurrentName();
+        val token = parser.nextToken();
+        if ("content".equals(fieldName) && token == START_ARRAY) {
+          while (parser.nextToken() == START_OBJECT) {
+            entities.add(MAPPER.readValue(parser, Entity.class));
+          }
+        } else if ("last".equals(fieldName)) {
+          last = parser.getBooleanValue();
+        } else if ("totalPages".equals(fieldName)) {
+          totalPages = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
       }
+
+      return new Page(entities, last, totalPages);
     } catch (FileNotFoundException e) {
       throw new EntityNotFoundException(e.getMessage());
     }
-
-    // Remove potential duplicates due to inserts on paging:
-    // See https://jira.oicr.on.ca/browse/COL-491
-    return results.stream().distinct().collect(toImmutableList());
   }
 
   @SneakyThrows
@@ -109,4 +162,78 @@ public class MetadataClient {
     return new URL(serverUrl + "/entities" + path);
   }
 
+  @Value
+  private static class Page {
+
+    List<Entity> entities;
+    boolean last;
+    int totalPages;
+
+  }
+
+  /**
+   * Reads pages in order. Once the first page reports the total page count, the following pages are fetched ahead
+   * concurrently. Pages beyond the reported total, caused by inserts while paging, are read sequentially until the
+   * last page.
+   */
+  @RequiredArgsConstructor
+  private class PageReader extends AbstractIterator<Page> implements Closeable {
+
+    /**
+     * Configuration.
+     */
+    private final String path;
+
+    /**
+     * State.
+     */
+    private final ExecutorService executor = newFixedThreadPool(PREFETCH_PAGES,
+        new ThreadFactoryBuilder().setNameFormat("metadata-page-%d").setDaemon(true).build());
+    private final Deque<Future<Page>> pending = new ArrayDeque<>();
+    private int nextPageNumber;
+    private boolean last;
+
+    @Override
+    protected Page computeNext() {
+      if (last) {
+        return endOfData();
+      }
+
+      val page = pending.isEmpty() ? readPage(path, nextPageNumber++) : awaitPage(pending.remove());
+      last = page.isLast();
+      if (last) {
+        close();
+        return page;
+      }
+
+      while (pending.size() < PREFETCH_PAGES && nextPageNumber < page.getTotalPages()) {
+        val pageNumber = nextPageNumber++;
+        pending.add(executor.submit(() -> readPage(path, pageNumber)));
+      }
+
+      return page;
+    }
+
+    @Override
+    public void close() {
+      for (val future : pending) {
+        future.cancel(true);
+      }
+
+      pending.clear();
+      executor.shutdownNow();
+    }
+
+    @SneakyThrows
+    private Page awaitPage(Future<Page> future) {
+      try {
+        return future.get();
+      } catch (ExecutionException e) {
+        close();
+        throw propagate(e.getCause());
+      }
+    }
+
+  }
+
 }
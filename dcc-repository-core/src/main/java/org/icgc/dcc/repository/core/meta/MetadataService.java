@@ -17,22 +17,75 @@
  */
 package org.icgc.dcc.repository.core.meta;
 
+import static com.google.common.base.Stopwatch.createStarted;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Maps;
 
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Entity lookups against the metadata server.
+ * <p>
+ * In prefetch mode the full entity list is fetched once and indexed in memory so that lookups are map hits instead of
+ * paged HTTP requests. The index is rebuilt on the first lookup after the refresh interval has elapsed so that long
+ * runs see entities registered since it was built. Lookups are then answered from the index only.
+ */
+@Slf4j
 @RequiredArgsConstructor
 public class MetadataService {
 
+  /**
+   * Constants.
+   */
+  public static final long DEFAULT_REFRESH_INTERVAL_NANOS = HOURS.toNanos(1);
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
   private final MetadataClient metadataClient;
 
+  /**
+   * Configuration.
+   */
+  private final boolean prefetch;
+  private final long refreshIntervalNanos;
+
+  /**
+   * State.
+   */
+  private EntityIndex index;
+
+  public MetadataService(MetadataClient metadataClient) {
+    this(metadataClient, false, DEFAULT_REFRESH_INTERVAL_NANOS);
+  }
+
+  public MetadataService(MetadataClient metadataClient, boolean prefetch) {
+    this(metadataClient, prefetch, DEFAULT_REFRESH_INTERVAL_NANOS);
+  }
+
   public List<Entity> getEntities() {
     return metadataClient.findEntities();
   }
 
   public Optional<Entity> getEntity(String objectId) {
+    if (prefetch) {
+      return Optional.ofNullable(getIndex().getEntities().get(objectId));
+    }
+
     try {
       return Optional.of(metadataClient.findEntity(objectId));
     } catch (EntityNotFoundException e) {
@@ -40,15 +93,27 @@ public class MetadataService {
     }
   }
 
+  /**
+   * Finds the {@code .bai} index file of an entity, or its {@code .tbi} index file if there is none. Both modes prefer
+   * {@code .bai} so that the result does not depend on the order in which the metadata server lists entities.
+   */
   public Optional<Entity> getIndexEntity(Entity entity) {
+    if (prefetch) {
+      val index = getIndex();
+      val bai = index.getFile(entity.getGnosId(), entity.getFileName() + ".bai");
+      return bai.isPresent() ? bai : index.getFile(entity.getGnosId(), entity.getFileName() + ".tbi");
+    }
+
     val entities = metadataClient.findEntitiesByGnosId(entity.getGnosId());
-    return entities
-        .stream()
-        .filter(e -> isIndexFile(e, entity.getFileName()))
-        .findFirst();
+    val bai = entities.stream().filter(e -> isBaiFile(e, entity.getFileName())).findFirst();
+    return bai.isPresent() ? bai : entities.stream().filter(e -> isTbiFile(e, entity.getFileName())).findFirst();
   }
 
   public Optional<Entity> getXmlEntity(Entity entity) {
+    if (prefetch) {
+      return getIndex().getFile(entity.getGnosId(), entity.getGnosId() + ".xml");
+    }
+
     val entities = metadataClient.findEntitiesByGnosId(entity.getGnosId());
     return entities
         .stream()
@@ -56,8 +121,17 @@ public class MetadataService {
         .findFirst();
   }
 
-  private static boolean isIndexFile(Entity e, String fileName) {
-    return isBaiFile(e, fileName) || isTbiFile(e, fileName);
+  private synchronized EntityIndex getIndex() {
+    if (index == null || index.getAge() > refreshIntervalNanos) {
+      log.info("Prefetching metadata entities...");
+      val watch = createStarted();
+      @Cleanup
+      val entities = metadataClient.streamEntities();
+      index = new EntityIndex(entities);
+      log.info("Indexed {} metadata entities in {}", formatCount(index.getEntities().size()), watch);
+    }
+
+    return index;
   }
 
   private static boolean isTbiFile(Entity e, String fileName) {
@@ -76,4 +150,38 @@ public class MetadataService {
     return e.getFileName().compareToIgnoreCase(indexFileName) == 0;
   }
 
+  private static class EntityIndex {
+
+    /**
+     * State.
+     */
+    private final long createdTime = System.nanoTime();
+    @Getter
+    private final Map<String, Entity> entities = Maps.newHashMap();
+    private final Map<String, Entity> files = Maps.newHashMap();
+
+    EntityIndex(Stream<Entity> entities) {
+      entities.forEach(entity -> {
+        this.entities.put(entity.getId(), entity);
+
+        // First wins, as with a search of the gnosId's entities
+        this.files.putIfAbsent(getFileKey(entity.getGnosId(), entity.getFileName()), entity);
+      });
+    }
+
+    Optional<Entity> getFile(String gnosId, String fileName) {
+      return Optional.ofNullable(files.get(getFileKey(gnosId, fileName)));
+    }
+
+    long getAge() {
+      return System.nanoTime() - createdTime;
+    }
+
+    private static String getFileKey(String gnosId, String fileName) {
+      // File names are matched ignoring case
+      return gnosId + "/" + (fileName == null ? null : fileName.toLowerCase(Locale.ROOT));
+    }
+
+  }
+
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.model;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable membership index of submitted donor ids keyed by project.
+ * <p>
+ * Lookups take the project code and submitted donor id separately so no qualified key has to be built per call. Each
+ * project holds its ids in an open addressed table of the original strings, which avoids the per entry prefix and
+ * node overhead of a set of {@code projectCode:submittedDonorId} strings.
+ */
+@Slf4j
+public final class RepositorySubmittedDonorIds {
+
+  /**
+   * Constants.
+   */
+  private static final RepositorySubmittedDonorIds EMPTY = builder().build();
+
+  /**
+   * Data.
+   */
+  private final Map<String, ProjectIds> projects;
+  private final int size;
+
+  private RepositorySubmittedDonorIds(Map<String, ProjectIds> projects) {
+    this.projects = ImmutableMap.copyOf(projects);
+    this.size = projects.values().stream().mapToInt(ProjectIds::size).sum();
+  }
+
+  public static RepositorySubmittedDonorIds empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public boolean contains(String projectCode, String submittedDonorId) {
+    if (projectCode == null || submittedDonorId == null) {
+      return false;
+    }
+
+    val ids = projects.get(projectCode);
+    return ids != null && ids.contains(submittedDonorId);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(projects=" + projects.size() + ", size=" + size + ")";
+  }
+
+  public static class Builder {
+
+    /**
+     * State.
+     */
+    private final Map<String, ProjectIds> projects = Maps.newHashMap();
+    private boolean built;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds the submitted donor id of a project. Donors missing either value cannot be matched by
+     * {@link RepositorySubmittedDonorIds#contains} and are skipped.
+     */
+    public Builder add(String projectCode, String submittedDonorId) {
+      checkState(!built, "Builder has already been built");
+      if (projectCode == null || submittedDonorId == null) {
+        log.warn("Skipping donor with project code '{}' and submitted donor id '{}'", projectCode, submittedDonorId);
+        return this;
+      }
+
+      projects.computeIfAbsent(projectCode, code -> new ProjectIds()).add(submittedDonorId);
+
+      return this;
+    }
+
+    public RepositorySubmittedDonorIds build() {
+      // Tables are shared with the built instance rather than copied
+      built = true;
+      return new RepositorySubmittedDonorIds(projects);
+    }
+
+  }
+
+  /**
+   * Linear probing hash set of the submitted donor ids of a single project.
+   */
+  private static class ProjectIds {
+
+    /**
+     * Constants.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * State.
+     */
+    private String[] table = new String[INITIAL_CAPACITY];
+    private int size;
+
+    boolean contains(String id) {
+      val mask = table.length - 1;
+      for (int i = index(id, mask);; i = (i + 1) & mask) {
+        val entry = table[i];
+        if (entry == null) {
+          return false;
+        }
+        if (entry.equals(id)) {
+          return true;
+        }
+      }
+    }
+
+    void add(String id) {
+      if (insert(table, id)) {
+        size++;
+
+        // Keep the load factor at or below one half so probe sequences stay short
+        if (size * 2 > table.length) {
+          resize();
+        }
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    private void resize() {
+      val resized = new String[table.length * 2];
+      for (val entry : table) {
+        if (entry != null) {
+          insert(resized, entry);
+        }
+      }
+
+      this.table = resized;
+    }
+
+    private static boolean insert(String[] table, String id) {
+      val mask = table.length - 1;
+      for (int i = index(id, mask);; i = (i + 1) & mask) {
+        val entry = table[i];
+        if (entry == null) {
+          table[i] = id;
+          return true;
+        }
+        if (entry.equals(id)) {
+          return false;
+        }
+      }
+    }
+
+    private static int index(String id, int mask) {
+      // Spread the string hash since ids often share long prefixes and differ only in their last characters
+      val hash = id.hashCode() * 0x9E3779B9;
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+
+  }
+
+}
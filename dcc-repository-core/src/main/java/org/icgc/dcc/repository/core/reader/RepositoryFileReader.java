@@ -59,4 +59,15 @@ public class RepositoryFileReader extends AbstractJongoComponent {
     return collection.find().as(RepositoryFile.class);
   }
 
+  /**
+   * Reads all files ordered by {@code id} so that multiple collections can be merged in a single streaming pass.
+   * <p>
+   * Files without an {@code id} sort first, consistent with MongoDB's ascending order for {@code null} values.
+   */
+  public Iterable<RepositoryFile> readOrderedById() {
+    log.info("Reading '{}' files ordered by id...", collection.getName());
+    collection.ensureIndex("{id: 1}");
+    return collection.find().sort("{id: 1}").as(RepositoryFile.class);
+  }
+
 }
@@ -17,17 +17,26 @@
  */
 package org.icgc.dcc.repository.core.release;
 
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkState;
 import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
 import static org.icgc.dcc.common.core.util.Joiners.COMMA;
 
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 
 import lombok.Builder;
+import lombok.Cleanup;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.Value;
@@ -43,6 +52,10 @@ public class ReleaseClient {
    * Constants.
    */
   private static final String DEFAULT_RELEASE_URL = "http://elasticsearch1.res.oicr.on.ca:9200/icgc-release";
+  private static final String INDEX_TYPE = "donor-text"; // Small and has fields exposed
+  private static final String FIELDS = COMMA.join("_id", "projectId", "submittedId"); // Limit fields to those needed
+  private static final int SCROLL_SIZE = 5000; // Per shard
+  private static final String SCROLL_KEEP_ALIVE = "1m";
 
   /**
    * Configuration.
@@ -54,27 +67,77 @@ public class ReleaseClient {
   }
 
   public List<Donor> getDonors() {
-    val result = readDonors();
+    val donors = ImmutableList.<Donor> builder();
+    eachDonor(donors::add);
 
-    val hits = getHits(result);
+    return donors.build();
+  }
 
-    val donors = ImmutableList.<Donor> builder();
-    for (val hit : hits) {
-      val donor = createDonor(hit);
-      donors.add(donor);
+  /**
+   * Streams all donors of the release to {@code consumer} without holding them in memory.
+   * <p>
+   * Donors are paged with a scan and scroll so the release size is not bounded by the search result window, and each
+   * page is parsed as it is read.
+   */
+  @SneakyThrows
+  public void eachDonor(@NonNull Consumer<Donor> consumer) {
+    val searchUrl = new URL(url + "/" + INDEX_TYPE + "/_search?search_type=scan&scroll=" + SCROLL_KEEP_ALIVE
+        + "&size=" + SCROLL_SIZE + "&fields=" + FIELDS);
+
+    // The initial scan response only returns the scroll id
+    Page page = readPage(searchUrl, consumer);
+    do {
+      val scrollUrl = new URL(new URL(url), "/_search/scroll?scroll=" + SCROLL_KEEP_ALIVE + "&scroll_id="
+          + URLEncoder.encode(page.getScrollId(), UTF_8.name()));
+      page = readPage(scrollUrl, consumer);
+    } while (page.getHitCount() > 0);
+
+    // The scroll context is released by the server once the keep alive expires
+  }
+
+  @SneakyThrows
+  private static Page readPage(URL pageUrl, Consumer<Donor> consumer) {
+    @Cleanup
+    val parser = DEFAULT.getFactory().createParser(pageUrl);
+    checkState(parser.nextToken() == START_OBJECT, "Expected a search response from %s", pageUrl);
+
+    String scrollId = null;
+    int hitCount = 0;
+    while (parser.nextToken() == FIELD_NAME) {
+      val fieldName = parser.getCurrentName();
+      val token = parser.nextToken();
+      if ("_scroll_id".equals(fieldName)) {
+        scrollId = parser.getText();
+      } else if ("hits".equals(fieldName) && token == START_OBJECT) {
+        hitCount = readHits(parser, consumer);
+      } else {
+        parser.skipChildren();
+      }
     }
 
-    return donors.build();
+    checkState(scrollId != null, "Missing scroll id in search response from %s", pageUrl);
+    return new Page(scrollId, hitCount);
   }
 
   @SneakyThrows
-  private ObjectNode readDonors() {
-    val size = 100_000; // Way greater than we expect (i.e. ~20k)
-    val fields = COMMA.join("_id", "projectId", "submittedId"); // Limit fields to those needed
-    val indexType = "donor-text"; // Small and has fields exposed
-    val donorUrl = url + "/" + indexType + "/_search?size=" + size + "&fields=" + fields;
+  private static int readHits(JsonParser parser, Consumer<Donor> consumer) {
+    int hitCount = 0;
+    while (parser.nextToken() == FIELD_NAME) {
+      val fieldName = parser.getCurrentName();
+      val token = parser.nextToken();
+      if ("hits".equals(fieldName) && token == START_ARRAY) {
+        while (parser.nextToken() == START_OBJECT) {
+          // Hits are tiny since only a few fields are requested
+          JsonNode hit = DEFAULT.readTree(parser);
+          consumer.accept(createDonor(hit));
+          hitCount++;
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
 
-    return DEFAULT.readValue(new URL(donorUrl), ObjectNode.class);
+    return hitCount;
   }
 
   private static Donor createDonor(JsonNode hit) {
@@ -85,8 +148,12 @@ public class ReleaseClient {
         .build();
   }
 
-  private static JsonNode getHits(ObjectNode result) {
-    return result.path("hits").path("hits");
+  @Value
+  private static class Page {
+
+    String scrollId;
+    int hitCount;
+
   }
 
   @Value
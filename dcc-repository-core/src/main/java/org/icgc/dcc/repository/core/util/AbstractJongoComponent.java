@@ -18,25 +18,35 @@
 package org.icgc.dcc.repository.core.util;
 
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.joining;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
+import static org.icgc.dcc.repository.core.util.Jongos.closeJongo;
 import static org.icgc.dcc.repository.core.util.Jongos.newJongo;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.model.RepositoryCollection;
+import org.jongo.Find;
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
 import org.jongo.MongoCursor;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClientURI;
 
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -53,14 +63,22 @@ public abstract class AbstractJongoComponent implements Closeable {
    */
   protected final Jongo jongo;
 
+  /**
+   * State.
+   */
+  private boolean closed;
+
   public AbstractJongoComponent(@NonNull MongoClientURI mongoUri) {
     this.mongoUri = mongoUri;
     this.jongo = newJongo(mongoUri);
   }
 
   @Override
-  public void close() throws IOException {
-    jongo.getDatabase().getMongo().close();
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      closeJongo(mongoUri);
+    }
   }
 
   protected MongoCollection getCollection(@NonNull RepositoryCollection fileCollection) {
@@ -105,6 +123,29 @@ public abstract class AbstractJongoComponent implements Closeable {
     return documentCount;
   }
 
+  /**
+   * Reads the documents of a collection as a parallel stream of {@code partitionCount} {@code _id} ranges, each of
+   * which is read with its own cursor.
+   * <p>
+   * Range bounds are sampled from the {@code _id} index so that partitions are of roughly equal size. Documents are not
+   * returned in any particular order. Only the supplied {@code fields} of each document are read, in dot notation.
+   * All fields are read if empty.
+   */
+  protected <T> Stream<T> readPartitions(@NonNull String collectionName, int partitionCount,
+      @NonNull Collection<String> fields, @NonNull Class<T> type) {
+    val projection = projection(fields);
+    val collection = getCollection(collectionName);
+    val bounds = getPartitionBounds(collection, partitionCount);
+    log.info("Reading collection '{}' in {} partitions...", collection.getName(), bounds.size() + 1);
+
+    return IntStream.rangeClosed(0, bounds.size()).parallel().boxed().flatMap(i -> {
+      Object lower = i == 0 ? null : bounds.get(i - 1);
+      Object upper = i == bounds.size() ? null : bounds.get(i);
+
+      return readPartition(collection, lower, upper, projection, type);
+    });
+  }
+
   protected <T> List<T> mapDocument(@NonNull RepositoryCollection fileCollection,
       @NonNull Function<ObjectNode, T> mapping) {
     val results = ImmutableList.<T> builder();
@@ -117,4 +158,63 @@ public abstract class AbstractJongoComponent implements Closeable {
     return results.build();
   }
 
+  /**
+   * Creates a projection of the supplied {@code fields}. An empty projection selects all fields.
+   */
+  protected static String projection(@NonNull Collection<String> fields) {
+    return fields.stream().map(field -> "'" + field + "': 1").collect(joining(", ", "{", "}"));
+  }
+
+  private static List<Object> getPartitionBounds(MongoCollection collection, int partitionCount) {
+    val bounds = Lists.newArrayList();
+    val documentCount = collection.count();
+    if (partitionCount <= 1 || documentCount < partitionCount) {
+      return bounds;
+    }
+
+    // Each bound is found by skipping from the previous one so the index is only walked once in total
+    val partitionSize = (int) (documentCount / partitionCount);
+    val dbCollection = collection.getDBCollection();
+    Object bound = null;
+    for (int i = 1; i < partitionCount; i++) {
+      val query = bound == null ? new BasicDBObject() : new BasicDBObject("_id", new BasicDBObject("$gte", bound));
+      val cursor = dbCollection.find(query, new BasicDBObject("_id", 1))
+          .sort(new BasicDBObject("_id", 1))
+          .skip(partitionSize)
+          .limit(1);
+      if (!cursor.hasNext()) {
+        break;
+      }
+
+      bound = cursor.next().get("_id");
+      bounds.add(bound);
+    }
+
+    return bounds;
+  }
+
+  private static <T> Stream<T> readPartition(MongoCollection collection, Object lower, Object upper,
+      String projection, Class<T> type) {
+    Find find;
+    if (lower == null && upper == null) {
+      find = collection.find();
+    } else if (lower == null) {
+      find = collection.find("{_id: {$lt: #}}", upper);
+    } else if (upper == null) {
+      find = collection.find("{_id: {$gte: #}}", lower);
+    } else {
+      find = collection.find("{_id: {$gte: #, $lt: #}}", lower, upper);
+    }
+
+    val cursor = find.projection(projection).as(type);
+
+    // Closed by flatMap once the partition has been consumed
+    return stream(cursor).onClose(() -> closeCursor(cursor));
+  }
+
+  @SneakyThrows
+  private static void closeCursor(MongoCursor<?> cursor) {
+    cursor.close();
+  }
+
 }
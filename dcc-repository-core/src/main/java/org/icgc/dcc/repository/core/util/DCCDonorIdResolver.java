@@ -17,28 +17,21 @@
  */
 package org.icgc.dcc.repository.core.util;
 
-import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableSet;
-
-import java.util.Set;
-import java.util.stream.Stream;
-
 import org.icgc.dcc.repository.core.RepositoryIdResolver;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
 import org.icgc.dcc.repository.core.release.ReleaseClient;
-import org.icgc.dcc.repository.core.release.ReleaseClient.Donor;
+
+import lombok.val;
 
 public class DCCDonorIdResolver implements RepositoryIdResolver {
 
   @Override
-  public Set<String> resolveIds() {
-    return resolveDonors().map(this::formatId).collect(toImmutableSet());
-  }
-
-  private String formatId(Donor donor) {
-    return donor.getProjectCode() + ":" + donor.getSubmittedDonorId();
-  }
+  public RepositorySubmittedDonorIds resolveIds() {
+    // Ids are collected as donors are streamed so the donors themselves are never held in memory
+    val ids = RepositorySubmittedDonorIds.builder();
+    new ReleaseClient().eachDonor(donor -> ids.add(donor.getProjectCode(), donor.getSubmittedDonorId()));
 
-  private Stream<Donor> resolveDonors() {
-    return new ReleaseClient().getDonors().stream();
+    return ids.build();
   }
 
 }
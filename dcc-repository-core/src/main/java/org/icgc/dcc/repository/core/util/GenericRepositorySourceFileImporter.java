@@ -18,8 +18,12 @@
 package org.icgc.dcc.repository.core.util;
 
 import static com.google.common.base.Stopwatch.createStarted;
-import static com.google.common.collect.Iterables.isEmpty;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.name;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.record;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositorySourceFileImporter;
@@ -35,6 +39,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.val;
 
+/**
+ * Imports the files of a single source in one streaming pass.
+ * <p>
+ * The files emitted by {@link #readFiles()} are consumed exactly once, directly into the writer, so lazy sources are
+ * fetched a single time and eager sources are never copied. Emptiness and the file count are determined on the fly.
+ */
 @RequiredArgsConstructor
 public abstract class GenericRepositorySourceFileImporter implements RepositorySourceFileImporter {
 
@@ -59,27 +69,39 @@ public abstract class GenericRepositorySourceFileImporter implements RepositoryS
     val watch = createStarted();
 
     log.info("Reading '{}' files...", source);
-    val files = readFiles();
-    log.info("Finished '{}' reading files", source);
+    val fileCount = new AtomicInteger();
+    @Cleanup
+    val files = readFiles().peek(file -> fileCount.incrementAndGet());
 
-    if (isEmpty(files)) {
+    // Only pulls the first file so that an empty source is detected before anything is written
+    val iterator = files.iterator();
+    if (!iterator.hasNext()) {
       log.error("**** Files are empty! Reusing previous imported files");
       return;
     }
 
+    // Files are read as they are written so the write timing includes the reading
     log.info("Writing '{}' files...", source);
-    writeFiles(files);
+    val writeWatch = createStarted();
+    writeFiles(() -> iterator);
+    record(name("import", source.getId(), "write"), fileCount.get(), writeWatch);
     log.info("Finished '{}' writing files", source);
 
-    log.info("Imported {} '{}' files in {}.", formatCount(files), source, watch);
+    record(name("import", source.getId()), fileCount.get(), watch);
+    log.info("Imported {} '{}' files in {}.", formatCount(fileCount.get()), source, watch);
   }
 
-  protected abstract Iterable<RepositoryFile> readFiles();
+  /**
+   * @return the files of the source, which are consumed exactly once
+   */
+  protected abstract Stream<RepositoryFile> readFiles();
 
   @SneakyThrows
   protected void writeFiles(Iterable<RepositoryFile> files) {
+    val settings = context.getSettings();
     @Cleanup
-    val writer = new RepositorySourceFileWriter(context.getMongoUri(), source);
+    val writer = new RepositorySourceFileWriter(context.getMongoUri(), source, settings.getWriteBatchSize(),
+        settings.getWriteThreads());
     writer.write(files);
   }
 
@@ -21,35 +21,99 @@ import static com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS;
 import static com.fasterxml.jackson.databind.PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES;
 import static lombok.AccessLevel.PRIVATE;
 
+import java.util.Map;
+
 import org.jongo.Jongo;
 import org.jongo.Mapper;
 import org.jongo.marshall.jackson.JacksonMapper;
 
-import com.mongodb.DB;
+import com.google.common.collect.Maps;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
 
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
-import lombok.SneakyThrows;
+import lombok.RequiredArgsConstructor;
 import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Creates {@link Jongo} instances backed by shared, reference counted {@link MongoClient}s.
+ * <p>
+ * A client and its connection pool are shared by all instances created for the same servers and options until the last
+ * of them is closed, even if they use different databases. URIs with credentials only share a client when their
+ * database is also the same, since credentials authenticate against it. Pool sizes and timeouts are tuned through the
+ * standard URI options such as {@code maxPoolSize}, {@code connectTimeoutMS} and {@code socketTimeoutMS}.
+ */
+@Slf4j
 @NoArgsConstructor(access = PRIVATE)
 public final class Jongos {
 
+  /**
+   * Constants.
+   */
+  private static final Mapper MAPPER = newMapper();
+
+  /**
+   * State.
+   */
+  private static final Map<String, SharedClient> CLIENTS = Maps.newHashMap();
+
   public static Jongo newJongo(@NonNull MongoClientURI mongoUri) {
-    val db = newDB(mongoUri);
-    val mapper = newMapper();
+    val db = acquireClient(mongoUri).getDB(mongoUri.getDatabase());
+
+    return new Jongo(db, MAPPER);
+  }
+
+  /**
+   * Releases a {@link Jongo} created by {@link #newJongo(MongoClientURI)}, closing its client if it was the last user.
+   */
+  public static synchronized void closeJongo(@NonNull MongoClientURI mongoUri) {
+    val key = getClientKey(mongoUri);
+    val shared = CLIENTS.get(key);
+    if (shared == null) {
+      return;
+    }
+
+    if (--shared.references == 0) {
+      log.info("Closing Mongo client for '{}'...", mongoUri.getHosts());
+      CLIENTS.remove(key);
+      shared.client.close();
+    }
+  }
+
+  private static synchronized MongoClient acquireClient(MongoClientURI mongoUri) {
+    val key = getClientKey(mongoUri);
+    SharedClient shared = CLIENTS.get(key);
+    if (shared == null) {
+      log.info("Creating Mongo client for '{}'...", mongoUri.getHosts());
+      shared = new SharedClient(newClient(mongoUri));
+      CLIENTS.put(key, shared);
+    }
 
-    return new Jongo(db, mapper);
+    shared.references++;
+    return shared.client;
   }
 
-  @SneakyThrows
-  private static DB newDB(MongoClientURI mongoUri) {
-    val mongo = new MongoClient(mongoUri);
-    val db = mongo.getDB(mongoUri.getDatabase());
+  /**
+   * Identifies the client of a URI by its string form, since {@link MongoClientURI} does not define equality. The
+   * database is left out unless there are credentials.
+   */
+  static String getClientKey(@NonNull MongoClientURI mongoUri) {
+    val uri = mongoUri.getURI();
+    if (mongoUri.getUsername() != null) {
+      return uri;
+    }
+
+    return uri.replaceFirst("^(mongodb://[^/?]*)/?[^?]*", "$1/");
+  }
 
-    return db;
+  private static MongoClient newClient(MongoClientURI mongoUri) {
+    try {
+      return new MongoClient(mongoUri);
+    } catch (Exception e) {
+      throw new IllegalStateException("Error creating Mongo client for " + mongoUri.getHosts(), e);
+    }
   }
 
   private static Mapper newMapper() {
@@ -59,4 +123,12 @@ public final class Jongos {
     }).build();
   }
 
+  @RequiredArgsConstructor
+  private static class SharedClient {
+
+    final MongoClient client;
+    int references;
+
+  }
+
 }
@@ -25,6 +25,7 @@ import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositoryFileContextBuilder;
 import org.icgc.dcc.repository.core.RepositoryIdResolver;
 import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -51,7 +52,7 @@ public final class RepositoryFileContexts {
   }
 
   private static RepositoryIdResolver newEmptyIdResovler() {
-    return () -> ImmutableSet.of();
+    return () -> RepositorySubmittedDonorIds.empty();
   }
 
 }
@@ -17,6 +17,8 @@
  */
 package org.icgc.dcc.repository.core.util;
 
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS;
+import static com.fasterxml.jackson.databind.PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES;
 import static lombok.AccessLevel.PRIVATE;
 import static org.icgc.dcc.repository.core.model.RepositorySource.PCAWG;
 
@@ -25,26 +27,59 @@ import java.util.Comparator;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositoryFile.FileCopy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hashing;
+
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
 
 @NoArgsConstructor(access = PRIVATE)
 public final class RepositoryFiles {
 
+  /**
+   * Constants.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .setPropertyNamingStrategy(CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+      .setSerializationInclusion(ALWAYS);
+
   public static Comparator<? super RepositoryFile> inPCAWGOrder() {
     return (f1, f2) -> isPCAWGFile(f1) ? -1 : 0;
   }
 
   public static boolean isPCAWGFile(@NonNull RepositoryFile file) {
-    return file.getFileCopies().stream().anyMatch(fileCopy -> isPCAWGFileCopy(fileCopy));
+    // Called for every merged file so avoid allocating a stream
+    for (val fileCopy : file.getFileCopies()) {
+      if (isPCAWGFileCopy(fileCopy)) {
+        return true;
+      }
+    }
+
+    return false;
   }
 
   public static boolean isPCAWGFileCopy(@NonNull FileCopy fileCopy) {
     return fileCopy.getRepoOrg().equals(PCAWG.getId());
   }
 
-  public static String qualifyDonorId(String projectCode, String submittedDonorId) {
-    return projectCode + ":" + submittedDonorId;
+  /**
+   * Converts the supplied file into the same document layout used when it is stored in Mongo.
+   * 
+   * @see Jongos
+   */
+  public static ObjectNode toObjectNode(@NonNull RepositoryFile file) {
+    return MAPPER.valueToTree(file);
+  }
+
+  /**
+   * Computes a stable 64-bit fingerprint of the content of the supplied file.
+   */
+  @SneakyThrows
+  public static long fingerprint(@NonNull RepositoryFile file) {
+    return Hashing.murmur3_128().hashBytes(MAPPER.writeValueAsBytes(file)).asLong();
   }
 
 }
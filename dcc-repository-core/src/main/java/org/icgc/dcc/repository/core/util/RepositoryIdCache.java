@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Strings.nullToEmpty;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.counter;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Optional;
+
+import com.codahale.metrics.Counter;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable cache of the ids assigned by the ID service, shared across runs.
+ * <p>
+ * Assigned ids never change, so once an id is known it never needs to be requested again. Entries are kept in an
+ * append-only log of tab separated {@code type, projectCode, submittedId, id} lines which is read into memory on
+ * creation. New entries are flushed as soon as they are appended so that a failed run keeps everything it learned,
+ * and a torn last line left by a crash is skipped on the next read.
+ */
+@Slf4j
+public class RepositoryIdCache implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final char SEPARATOR = '\t';
+  private static final char TERMINATOR = '\n';
+  private static final int FIELD_COUNT = 4;
+  private static final Splitter FIELD_SPLITTER = Splitter.on(SEPARATOR);
+  private static final Joiner FIELD_JOINER = Joiner.on(SEPARATOR);
+  private static final CharMatcher RESERVED_CHARS = CharMatcher.anyOf("" + SEPARATOR + TERMINATOR);
+
+  public enum IdType {
+
+    DONOR, SPECIMEN, SAMPLE, FILE;
+
+  }
+
+  /**
+   * Configuration.
+   */
+  @Getter
+  @NonNull
+  private final File file;
+
+  /**
+   * State.
+   */
+  private final Map<String, String> ids;
+  private final Writer writer;
+  private final Counter hits = counter("id.cache.hit");
+  private final Counter misses = counter("id.cache.miss");
+
+  public RepositoryIdCache(@NonNull File file) {
+    this.file = file;
+    this.ids = readIds(file);
+    this.writer = openWriter(file);
+
+    log.info("Read {} cached ids from '{}'", formatCount(ids.size()), file);
+  }
+
+  public Optional<String> get(@NonNull IdType type, @NonNull String submittedId, String projectCode) {
+    val id = ids.get(getKey(type, submittedId, projectCode));
+    (id == null ? misses : hits).inc();
+
+    return Optional.ofNullable(id);
+  }
+
+  public void put(@NonNull IdType type, @NonNull String submittedId, String projectCode, @NonNull String id) {
+    if (isCacheable(submittedId, projectCode, id)) {
+      append(getKey(type, submittedId, projectCode), id);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  @SneakyThrows
+  private synchronized void append(String key, String id) {
+    if (ids.putIfAbsent(key, id) != null) {
+      // Resolved concurrently
+      return;
+    }
+
+    writer.write(key);
+    writer.write(SEPARATOR);
+    writer.write(id);
+    writer.write(TERMINATOR);
+    writer.flush();
+  }
+
+  private static String getKey(IdType type, String submittedId, String projectCode) {
+    return FIELD_JOINER.join(type, nullToEmpty(projectCode), submittedId);
+  }
+
+  private static boolean isCacheable(String submittedId, String projectCode, String id) {
+    // Values that would break the line format are simply never cached
+    return !RESERVED_CHARS.matchesAnyOf(submittedId) && !RESERVED_CHARS.matchesAnyOf(nullToEmpty(projectCode))
+        && !RESERVED_CHARS.matchesAnyOf(id);
+  }
+
+  @SneakyThrows
+  private static Map<String, String> readIds(File file) {
+    val ids = Maps.<String, String> newConcurrentMap();
+    if (!file.exists()) {
+      return ids;
+    }
+
+    // An unterminated last line may have been cut anywhere, including within the id
+    val terminated = isTerminated(file);
+
+    @Cleanup
+    val reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+    String line = reader.readLine();
+    while (line != null) {
+      val next = reader.readLine();
+      if (next == null && !terminated) {
+        log.warn("Skipping torn cached id line '{}' in '{}'", line, file);
+        break;
+      }
+
+      val fields = FIELD_SPLITTER.splitToList(line);
+      if (fields.size() != FIELD_COUNT || fields.get(FIELD_COUNT - 1).isEmpty()) {
+        log.warn("Skipping malformed cached id line '{}' in '{}'", line, file);
+      } else {
+        val key = FIELD_JOINER.join(fields.subList(0, FIELD_COUNT - 1));
+        ids.put(key, fields.get(FIELD_COUNT - 1));
+      }
+
+      line = next;
+    }
+
+    return ids;
+  }
+
+  @SneakyThrows
+  private static Writer openWriter(File file) {
+    val parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+
+    if (!isTerminated(file)) {
+      // Drop a torn last line so that appends never complete it into a line that looks valid
+      truncateTornLine(file);
+    }
+
+    return new OutputStreamWriter(new FileOutputStream(file, true), UTF_8);
+  }
+
+  @SneakyThrows
+  private static void truncateTornLine(File file) {
+    @Cleanup
+    val raf = new RandomAccessFile(file, "rw");
+    long length = raf.length();
+    while (length > 0) {
+      raf.seek(length - 1);
+      if (raf.read() == TERMINATOR) {
+        break;
+      }
+
+      length--;
+    }
+
+    raf.setLength(length);
+  }
+
+  @SneakyThrows
+  private static boolean isTerminated(File file) {
+    if (!file.exists() || file.length() == 0) {
+      return true;
+    }
+
+    @Cleanup
+    val raf = new RandomAccessFile(file, "r");
+    raf.seek(raf.length() - 1);
+    return raf.read() == TERMINATOR;
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.counter;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Executes ID service requests asynchronously.
+ * <p>
+ * Identical requests that are in flight at the same time share a single future so that an id ensured concurrently by
+ * several processors is only requested once. The number of requests in flight is bounded by the executor.
+ */
+@RequiredArgsConstructor
+public class RepositoryIdRequests {
+
+  /**
+   * Constants.
+   */
+  private static final Joiner KEY_JOINER = Joiner.on('\t');
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final Executor executor;
+
+  /**
+   * State.
+   */
+  private final ConcurrentMap<String, CompletableFuture<String>> inFlight = Maps.newConcurrentMap();
+  private final Timer latency = timer("id.request");
+  private final Counter errors = counter("id.request.error");
+  private final Counter coalesced = counter("id.request.coalesced");
+
+  /**
+   * Executes up to {@code maxRequests} requests concurrently on daemon threads.
+   */
+  public static RepositoryIdRequests concurrent(int maxRequests) {
+    checkArgument(maxRequests > 0, "maxRequests must be positive but was %s", maxRequests);
+    val threadFactory = new ThreadFactoryBuilder().setNameFormat("id-request-%d").setDaemon(true).build();
+
+    return new RepositoryIdRequests(newFixedThreadPool(maxRequests, threadFactory));
+  }
+
+  /**
+   * Executes requests in the calling thread, for cheap local ids.
+   */
+  public static RepositoryIdRequests direct() {
+    return new RepositoryIdRequests(Runnable::run);
+  }
+
+  /**
+   * Submits a request, or joins an identical one that is already in flight.
+   * 
+   * @param create whether the request creates the id or only gets it. The two are never coalesced.
+   */
+  public CompletableFuture<String> submit(@NonNull IdType type, boolean create, @NonNull String submittedId,
+      String projectCode, @NonNull Supplier<String> request) {
+    val key = KEY_JOINER.join(type, create, nullToEmpty(projectCode), submittedId);
+    val future = new CompletableFuture<String>();
+    val existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      coalesced.inc();
+      return existing;
+    }
+
+    try {
+      executor.execute(() -> execute(key, future, request));
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(key, future);
+      future.completeExceptionally(e);
+    }
+
+    return future;
+  }
+
+  /**
+   * Waits for a request to complete, rethrowing its failure rather than a {@link CompletionException}.
+   */
+  public static <T> T join(@NonNull CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  private void execute(String key, CompletableFuture<String> future, Supplier<String> request) {
+    val watch = latency.time();
+    try {
+      future.complete(request.get());
+    } catch (Throwable t) {
+      errors.inc();
+      future.completeExceptionally(t);
+    } finally {
+      watch.stop();
+      inFlight.remove(key, future);
+    }
+  }
+
+}
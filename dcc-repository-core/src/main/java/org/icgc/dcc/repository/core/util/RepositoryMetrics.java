@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static com.google.common.collect.Iterators.transform;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.File;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.json.MetricsModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.base.Stopwatch;
+
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Metrics shared by all modules of a run.
+ * <p>
+ * A unit of work records its wall time as a timer named {@code <name>}, its item count as a counter named
+ * {@code <name>.count} and its throughput in items per second as a histogram named {@code <name>.rate}. Rates are
+ * computed from the wall time of the work itself rather than from the lifetime of the run.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class RepositoryMetrics {
+
+  /**
+   * Constants.
+   */
+  public static final String REGISTRY_NAME = "dcc-repository";
+  private static final ObjectWriter WRITER = new ObjectMapper()
+      .registerModule(new MetricsModule(SECONDS, MILLISECONDS, false))
+      .writerWithDefaultPrettyPrinter();
+
+  public static MetricRegistry getRegistry() {
+    return SharedMetricRegistries.getOrCreate(REGISTRY_NAME);
+  }
+
+  public static String name(@NonNull String name, String... names) {
+    return MetricRegistry.name(name, names);
+  }
+
+  public static Timer timer(@NonNull String name) {
+    return getRegistry().timer(name);
+  }
+
+  public static Counter counter(@NonNull String name) {
+    return getRegistry().counter(name);
+  }
+
+  public static Histogram histogram(@NonNull String name) {
+    return getRegistry().histogram(name);
+  }
+
+  /**
+   * Records the wall time of completed work.
+   */
+  public static void time(@NonNull String name, @NonNull Stopwatch watch) {
+    timer(name).update(watch.elapsed(NANOSECONDS), NANOSECONDS);
+  }
+
+  /**
+   * Records the item count of work whose wall time is shared with other work, such as a lazy pipeline stage.
+   */
+  public static void count(@NonNull String name, long count) {
+    counter(name(name, "count")).inc(count);
+  }
+
+  /**
+   * Records the wall time, item count and throughput of completed work.
+   */
+  public static void record(@NonNull String name, long count, @NonNull Stopwatch watch) {
+    val elapsed = watch.elapsed(NANOSECONDS);
+    timer(name).update(elapsed, NANOSECONDS);
+    count(name, count);
+    histogram(name(name, "rate")).update(elapsed == 0 ? 0 : count * SECONDS.toNanos(1) / elapsed);
+  }
+
+  /**
+   * Records the number of bytes read or written.
+   */
+  public static void bytes(@NonNull String name, long bytes) {
+    counter(name(name, "bytes")).inc(bytes);
+  }
+
+  /**
+   * Counts the items of a lazy pipeline stage as they are iterated.
+   */
+  public static <T> Iterable<T> counted(@NonNull String name, @NonNull Iterable<T> items) {
+    val counter = counter(name(name, "count"));
+    return () -> transform(items.iterator(), item -> {
+      counter.inc();
+      return item;
+    });
+  }
+
+  @SneakyThrows
+  public static String toJson() {
+    return WRITER.writeValueAsString(getRegistry());
+  }
+
+  @SneakyThrows
+  public static void writeJson(@NonNull File file) {
+    WRITER.writeValue(file, getRegistry());
+  }
+
+}
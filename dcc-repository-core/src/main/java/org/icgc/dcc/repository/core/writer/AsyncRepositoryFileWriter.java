@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.writer;
+
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.MongoClientURI;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes files to the {@code File} collection on a background thread while the caller continues processing them.
+ * <p>
+ * Files are handed over through a bounded queue so a slow write applies back-pressure instead of buffering the whole
+ * collection in memory. Closing the writer waits for all queued files to be written, so it must only be closed once
+ * all files were produced successfully. Otherwise the writer should be {@link #abort() aborted}, which leaves the
+ * previous contents of the collection in place.
+ */
+@Slf4j
+public class AsyncRepositoryFileWriter implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final int QUEUE_CAPACITY = 10000;
+  private static final RepositoryFile END_OF_FILES = new RepositoryFile();
+  private static final RepositoryFile ABORT = new RepositoryFile();
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final RepositoryFileWriter writer;
+  @NonNull
+  private final ExecutorService executor;
+
+  /**
+   * State.
+   */
+  private final BlockingQueue<RepositoryFile> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Future<?> result;
+  private volatile boolean aborted;
+  private boolean closed;
+
+  public AsyncRepositoryFileWriter(@NonNull MongoClientURI mongoUri) {
+    this(new RepositoryFileWriter(mongoUri));
+  }
+
+  public AsyncRepositoryFileWriter(@NonNull RepositoryFileWriter writer) {
+    this.writer = writer;
+    this.executor = newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("file-writer-%d").build());
+    this.result = executor.submit(() -> writer.write(drain()));
+  }
+
+  /**
+   * Returns a view of {@code files} that writes each file as it is iterated.
+   */
+  public Iterable<RepositoryFile> tee(@NonNull Iterable<RepositoryFile> files) {
+    return () -> Iterators.transform(files.iterator(), file -> {
+      write(file);
+      return file;
+    });
+  }
+
+  public void write(@NonNull RepositoryFile file) {
+    enqueue(file);
+  }
+
+  /**
+   * Waits for all queued files to be written and commits them to the collection.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    try {
+      log.info("Waiting for queued files to be written...");
+      enqueue(END_OF_FILES);
+      awaitWriter();
+    } finally {
+      executor.shutdownNow();
+      writer.close();
+    }
+  }
+
+  /**
+   * Stops writing without committing the files written so far. Queued files are discarded.
+   */
+  @SneakyThrows
+  public synchronized void abort() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    aborted = true;
+    try {
+      log.warn("Aborting writing of queued files...");
+      queue.clear();
+      queue.put(ABORT);
+      result.get();
+    } catch (ExecutionException e) {
+      // Expected since the write was made to fail
+      log.debug("Aborted write failed with: {}", e.getCause().getMessage());
+    } finally {
+      executor.shutdownNow();
+      writer.close();
+    }
+  }
+
+  @SneakyThrows
+  private void enqueue(RepositoryFile file) {
+    if (aborted) {
+      return;
+    }
+
+    while (!queue.offer(file, 1, SECONDS)) {
+      // Don't block forever if the writer died
+      if (result.isDone()) {
+        awaitWriter();
+      }
+    }
+  }
+
+  @SneakyThrows
+  private void awaitWriter() {
+    try {
+      result.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Error writing files", e.getCause());
+    }
+  }
+
+  private Iterable<RepositoryFile> drain() {
+    return () -> new AbstractIterator<RepositoryFile>() {
+
+      @Override
+      @SneakyThrows
+      protected RepositoryFile computeNext() {
+        val file = queue.take();
+        if (file == ABORT) {
+          // Fail the write so the files written so far are never committed
+          throw new CancellationException("Writing of files was aborted");
+        }
+
+        return file == END_OF_FILES ? endOfData() : file;
+      }
+
+    };
+  }
+
+}
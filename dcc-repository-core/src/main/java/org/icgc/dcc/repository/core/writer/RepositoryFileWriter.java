@@ -17,72 +17,234 @@
  */
 package org.icgc.dcc.repository.core.writer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Stopwatch.createStarted;
+import static com.google.common.collect.Iterables.partition;
+import static com.google.common.collect.Iterables.transform;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
 import static org.icgc.dcc.repository.core.model.RepositoryCollection.FILE;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.name;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.record;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.icgc.dcc.repository.core.model.RepositoryCollection;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.util.AbstractJongoWriter;
 import org.jongo.MongoCollection;
+import org.jongo.marshall.Marshaller;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import com.mongodb.MongoClientURI;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class RepositoryFileWriter extends AbstractJongoWriter<Iterable<RepositoryFile>> {
 
+  /**
+   * Constants.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  private static final int PROGRESS_INTERVAL = 10000;
+  private static final String STAGING_SUFFIX = "_staging";
+
   /**
    * Configuration.
    */
   @Getter
   @NonNull
   private final RepositoryCollection fileCollection;
+  protected final int batchSize;
+  private final int writeThreads;
 
   /**
    * Dependencies.
    */
   @NonNull
-  private final MongoCollection collection;
+  protected final MongoCollection collection;
+  @NonNull
+  private final Marshaller marshaller;
 
   public RepositoryFileWriter(MongoClientURI mongoUri) {
     this(mongoUri, FILE);
   }
 
   public RepositoryFileWriter(MongoClientURI mongoUri, @NonNull RepositoryCollection fileCollection) {
+    this(mongoUri, fileCollection, DEFAULT_BATCH_SIZE, 1);
+  }
+
+  /**
+   * @param batchSize the number of files sent to Mongo per bulk write
+   * @param writeThreads the number of bulk writes in flight at once. A value of {@code 1} writes in the calling thread.
+   */
+  public RepositoryFileWriter(MongoClientURI mongoUri, @NonNull RepositoryCollection fileCollection, int batchSize,
+      int writeThreads) {
     super(mongoUri);
+    checkArgument(batchSize > 0, "batchSize must be positive but was %s", batchSize);
+    checkArgument(writeThreads > 0, "writeThreads must be positive but was %s", writeThreads);
     this.fileCollection = fileCollection;
+    this.batchSize = batchSize;
+    this.writeThreads = writeThreads;
     this.collection = getCollection(fileCollection);
+    this.marshaller = jongo.getMapper().getMarshaller();
   }
 
+  /**
+   * Replaces the contents of the collection with the supplied files.
+   * <p>
+   * Files are loaded into an empty staging collection which is indexed after the load and then renamed over the
+   * collection, so readers never see a partially written collection and a failed write leaves it untouched.
+   * <p>
+   * Subclasses may trade this guarantee for fewer writes, as {@link RepositorySourceFileWriter} does for source
+   * collections.
+   */
   @Override
   public void write(@NonNull Iterable<RepositoryFile> files) {
-    log.info("Clearing '{}' documents...", collection.getName());
-    clearFiles();
+    val staging = getCollection(collection.getName() + STAGING_SUFFIX);
+    log.info("Clearing '{}' documents...", staging.getName());
+    staging.drop();
+
+    // Files may be streamed so only iterate once
+    log.info("Writing '{}' documents...", collection.getName());
+    val watch = createStarted();
+    int writeCount;
+    try {
+      writeCount = writeBatches(files, "Wrote", batch -> saveFiles(staging, batch));
+    } catch (Throwable t) {
+      log.error("Error writing '{}' documents. Dropping '{}'...", collection.getName(), staging.getName());
+      staging.drop();
+      throw t;
+    }
 
-    log.info("Writing {} '{}' documents...", formatCount(files), collection.getName());
-    int writeCount = 0;
-    for (val file : files) {
-      saveFile(file);
+    log.info("Indexing '{}' documents...", staging.getName());
+    staging.ensureIndex("{id: 1}");
 
-      writeCount++;
-      if (writeCount % 10000 == 0) {
-        log.info("Wrote {} '{}' documents", formatCount(writeCount), collection.getName());
-      }
-    }
+    log.info("Swapping '{}' for '{}'...", staging.getName(), collection.getName());
+    staging.getDBCollection().rename(collection.getName(), true);
 
+    record(name("write", collection.getName()), writeCount, watch);
     log.info("Finished writing {} '{}' documents", formatCount(writeCount), collection.getName());
   }
 
+  /**
+   * Replaces or inserts the supplied files by {@code id} without clearing the collection first.
+   * 
+   * @return the ids of the files written
+   */
+  public Set<String> upsert(@NonNull Iterable<RepositoryFile> files) {
+    collection.ensureIndex("{id: 1}");
+
+    log.info("Upserting '{}' documents...", collection.getName());
+    val watch = createStarted();
+    val ids = Sets.<String> newHashSet();
+    val writeCount = writeBatches(transform(files, file -> {
+      ids.add(file.getId());
+      return file;
+    }), "Upserted", this::upsertFiles);
+
+    record(name("upsert", collection.getName()), writeCount, watch);
+    log.info("Finished upserting {} '{}' documents", formatCount(writeCount), collection.getName());
+    return ids;
+  }
+
+  public void remove(@NonNull Set<String> ids) {
+    log.info("Removing {} '{}' documents...", formatCount(ids.size()), collection.getName());
+    for (val batch : partition(ids, batchSize)) {
+      collection.remove("{id: {$in: #}}", batch);
+    }
+  }
+
   public void clearFiles() {
     clearDocuments(fileCollection);
   }
 
-  protected void saveFile(RepositoryFile file) {
-    collection.save(file);
+  protected void saveFiles(MongoCollection target, List<RepositoryFile> files) {
+    // Unordered so that Mongo may apply the batch in parallel
+    val bulk = target.getDBCollection().initializeUnorderedBulkOperation();
+    for (val file : files) {
+      bulk.insert(toDBObject(file));
+    }
+
+    bulk.execute();
+  }
+
+  protected void upsertFiles(List<RepositoryFile> files) {
+    val bulk = collection.getDBCollection().initializeUnorderedBulkOperation();
+    for (val file : files) {
+      bulk.find(new BasicDBObject("id", file.getId())).upsert().replaceOne(toDBObject(file));
+    }
+
+    bulk.execute();
+  }
+
+  protected DBObject toDBObject(RepositoryFile file) {
+    return marshaller.marshall(file).toDBObject();
+  }
+
+  /**
+   * Writes {@code files} in batches, on up to {@code writeThreads} threads.
+   * 
+   * @return the number of files written
+   */
+  @SneakyThrows
+  protected int writeBatches(Iterable<RepositoryFile> files, String action, Consumer<List<RepositoryFile>> writer) {
+    val executor = writeThreads > 1 ? newFixedThreadPool(writeThreads,
+        new ThreadFactoryBuilder().setNameFormat(collection.getName() + "-writer-%d").build()) : null;
+    val pending = Lists.<Future<?>> newLinkedList();
+    try {
+      int writeCount = 0;
+      for (val batch : partition(files, batchSize)) {
+        if (executor == null) {
+          writer.accept(batch);
+        } else {
+          // Bound the number of batches held in memory
+          while (pending.size() >= writeThreads * 2) {
+            awaitBatch(pending.remove());
+          }
+
+          pending.add(executor.submit(() -> writer.accept(batch)));
+        }
+
+        val previousCount = writeCount;
+        writeCount += batch.size();
+        if (writeCount / PROGRESS_INTERVAL > previousCount / PROGRESS_INTERVAL) {
+          log.info("{} {} '{}' documents", action, formatCount(writeCount), collection.getName());
+        }
+      }
+
+      for (val future : pending) {
+        awaitBatch(future);
+      }
+
+      return writeCount;
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  @SneakyThrows
+  private static void awaitBatch(Future<?> future) {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Error writing batch", e.getCause());
+    }
   }
 
 }
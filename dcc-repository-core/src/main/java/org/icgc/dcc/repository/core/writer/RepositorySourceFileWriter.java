@@ -17,16 +17,50 @@
  */
 package org.icgc.dcc.repository.core.writer;
 
+import static com.google.common.base.Stopwatch.createStarted;
+import static com.google.common.collect.Iterables.partition;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.count;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.name;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.record;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.icgc.dcc.repository.core.model.RepositoryCollection;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.util.RepositoryFiles;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClientURI;
 
+import lombok.Cleanup;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Writes the files of a single source, touching only the documents whose content changed since the previous import.
+ * <p>
+ * Each document is stored with a content hash of its file. On write the stored hashes are loaded into an index and
+ * compared against the hashes of the incoming files, so that unchanged documents are skipped, changed documents are
+ * replaced, new documents are inserted and documents no longer present are removed.
+ */
+@Slf4j
 public class RepositorySourceFileWriter extends RepositoryFileWriter {
 
+  /**
+   * Constants.
+   */
+  public static final String HASH_FIELD = "_hash";
+
   /**
    * Configuration.
    */
@@ -35,8 +69,206 @@ public class RepositorySourceFileWriter extends RepositoryFileWriter {
   private final RepositorySource source;
 
   public RepositorySourceFileWriter(MongoClientURI mongoUri, RepositorySource source) {
-    super(mongoUri, RepositoryCollection.forSource(source));
+    this(mongoUri, source, DEFAULT_BATCH_SIZE, 1);
+  }
+
+  public RepositorySourceFileWriter(MongoClientURI mongoUri, RepositorySource source, int batchSize,
+      int writeThreads) {
+    super(mongoUri, RepositoryCollection.forSource(source), batchSize, writeThreads);
     this.source = source;
   }
 
+  /**
+   * Synchronizes the collection with the supplied files, writing only new, changed and removed documents.
+   * <p>
+   * Unlike {@link RepositoryFileWriter#write(Iterable)} the collection is updated in place rather than swapped in, as
+   * a deliberate trade-off to avoid rewriting unchanged documents. If {@code files} fails midway the collection is left
+   * partially synchronized: files seen so far are up to date, the remaining documents keep their previous contents and
+   * documents that are no longer present are not removed. Since a merge continues after a failed import, it then
+   * combines a mix of current and previous files of the source, but never duplicates. The failure is reported, the run
+   * is not marked complete and the source is not marked imported, so the next run imports it again and brings the
+   * collection back in sync.
+   */
+  @Override
+  public void write(@NonNull Iterable<RepositoryFile> files) {
+    val collectionName = collection.getName();
+    collection.ensureIndex("{id: 1}");
+
+    log.info("Reading '{}' content hashes...", collectionName);
+    val hashes = readHashes();
+    log.info("Read {} '{}' content hashes", formatCount(hashes.size()), collectionName);
+
+    // Files may be streamed so only iterate once
+    log.info("Writing changed '{}' documents...", collectionName);
+    val watch = createStarted();
+    val changes = new Changes();
+    val fileCount = writeBatches(files, "Compared", batch -> writeChanges(hashes, changes, batch));
+
+    val removed = hashes.getUnmatched();
+    log.info("Removing {} '{}' documents...", formatCount(removed.size()), collectionName);
+    for (val batch : partition(removed, batchSize)) {
+      collection.getDBCollection().remove(new BasicDBObject("_id", new BasicDBObject("$in", batch)));
+    }
+
+    val metricName = name("write", collectionName);
+    record(metricName, fileCount, watch);
+    count(name(metricName, "unchanged"), changes.unchanged.get());
+    count(name(metricName, "replaced"), changes.replaced.get());
+    count(name(metricName, "inserted"), changes.inserted.get());
+    count(name(metricName, "removed"), removed.size());
+    log.info("Finished writing {} '{}' documents: {} unchanged, {} replaced, {} inserted, {} removed",
+        formatCount(fileCount), collectionName, formatCount(changes.unchanged.get()),
+        formatCount(changes.replaced.get()), formatCount(changes.inserted.get()), formatCount(removed.size()));
+  }
+
+  private void writeChanges(StoredHashes hashes, Changes changes, List<RepositoryFile> files) {
+    val bulk = collection.getDBCollection().initializeUnorderedBulkOperation();
+    int operationCount = 0;
+    for (val file : files) {
+      val hash = RepositoryFiles.fingerprint(file);
+      val match = hashes.match(file.getId());
+      if (match != null && hashes.hasHash(match, hash)) {
+        changes.unchanged.incrementAndGet();
+        continue;
+      }
+
+      val document = toDBObject(file);
+      document.put(HASH_FIELD, hash);
+      if (match == null) {
+        bulk.insert(document);
+        changes.inserted.incrementAndGet();
+      } else {
+        bulk.find(new BasicDBObject("_id", hashes.getObjectId(match))).replaceOne(document);
+        changes.replaced.incrementAndGet();
+      }
+
+      operationCount++;
+    }
+
+    // An empty bulk operation is rejected by the driver
+    if (operationCount > 0) {
+      bulk.execute();
+    }
+  }
+
+  private StoredHashes readHashes() {
+    val fields = new BasicDBObject("id", 1).append(HASH_FIELD, 1);
+    val hashes = new StoredHashes((int) collection.count());
+
+    @Cleanup
+    val cursor = collection.getDBCollection().find(new BasicDBObject(), fields);
+    for (val document : cursor) {
+      val hash = document.get(HASH_FIELD);
+
+      // Documents written before hashes were stored never match and so are replaced
+      hashes.add(document.get("_id"), (String) document.get("id"), hash instanceof Long ? (Long) hash : null);
+    }
+
+    return hashes;
+  }
+
+  /**
+   * Thread safe tallies of the changes applied by a write.
+   */
+  private static class Changes {
+
+    final AtomicInteger unchanged = new AtomicInteger();
+    final AtomicInteger replaced = new AtomicInteger();
+    final AtomicInteger inserted = new AtomicInteger();
+
+  }
+
+  /**
+   * Index of the stored content hashes, keyed by file {@code id}.
+   * <p>
+   * Each stored document is assigned a slot in parallel arrays, and a bit set records which slots were matched by an
+   * incoming file. Each stored document can be matched at most once, so an incoming file with the same {@code id} as
+   * one already matched is inserted as a new document, just as a full rewrite would store it.
+   */
+  private static class StoredHashes {
+
+    /**
+     * State.
+     */
+    private final Map<String, Integer> slots;
+    private final List<Object> objectIds;
+    private long[] hashes;
+    private final BitSet hashed = new BitSet();
+    private final BitSet matched = new BitSet();
+
+    /**
+     * Documents that can never be matched, either because they have no {@code id} or because they duplicate one.
+     */
+    private final List<Object> unmatchable = Lists.newArrayList();
+
+    StoredHashes(int expectedSize) {
+      this.slots = Maps.newHashMapWithExpectedSize(expectedSize);
+      this.objectIds = Lists.newArrayListWithCapacity(expectedSize);
+      this.hashes = new long[expectedSize];
+    }
+
+    int size() {
+      return objectIds.size() + unmatchable.size();
+    }
+
+    void add(Object objectId, String id, Long hash) {
+      if (id == null || slots.containsKey(id)) {
+        unmatchable.add(objectId);
+        return;
+      }
+
+      val slot = objectIds.size();
+      slots.put(id, slot);
+      objectIds.add(objectId);
+      if (hash != null) {
+        if (slot >= hashes.length) {
+          hashes = Arrays.copyOf(hashes, Math.max(16, hashes.length * 2));
+        }
+
+        hashes[slot] = hash;
+        hashed.set(slot);
+      }
+    }
+
+    /**
+     * Claims the stored document for {@code id}.
+     * 
+     * @return the slot of the document, or {@code null} if there is none or it was already claimed
+     */
+    synchronized Integer match(String id) {
+      if (id == null) {
+        return null;
+      }
+
+      val slot = slots.get(id);
+      if (slot == null || matched.get(slot)) {
+        return null;
+      }
+
+      matched.set(slot);
+      return slot;
+    }
+
+    boolean hasHash(int slot, long hash) {
+      return hashed.get(slot) && hashes[slot] == hash;
+    }
+
+    Object getObjectId(int slot) {
+      return objectIds.get(slot);
+    }
+
+    /**
+     * @return the {@code _id}s of all stored documents that were not matched by an incoming file
+     */
+    synchronized List<Object> getUnmatched() {
+      val unmatched = Lists.newArrayList(unmatchable);
+      for (int slot = matched.nextClearBit(0); slot < objectIds.size(); slot = matched.nextClearBit(slot + 1)) {
+        unmatched.add(objectIds.get(slot));
+      }
+
+      return unmatched;
+    }
+
+  }
+
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.meta;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Cleanup;
+import lombok.val;
+
+public class MetadataClientTest {
+
+  /**
+   * Constants.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Splitter.MapSplitter QUERY_SPLITTER = Splitter.on('&').withKeyValueSeparator('=');
+  private static final long PAGE_DELAY_MILLIS = 20;
+
+  /**
+   * State.
+   */
+  private HttpServer server;
+  private ExecutorService executor;
+
+  @After
+  public void tearDown() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testStreamEntitiesKeepsPageOrder() throws IOException {
+    val pages = ImmutableList.<List<String>> of(
+        ImmutableList.of("e1", "e2"),
+        ImmutableList.of("e3", "e4"),
+        ImmutableList.of("e5", "e6"),
+        ImmutableList.of("e7", "e8"),
+        ImmutableList.of("e9", "e10"),
+        ImmutableList.of("e11"));
+    val client = serve(pages, pages.size());
+
+    @Cleanup
+    val entities = client.streamEntities();
+
+    assertThat(getIds(entities)).containsExactly("e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "e10", "e11");
+  }
+
+  @Test
+  public void testStreamEntitiesReadsPagesBeyondTotal() throws IOException {
+    // An insert while paging shifted "e2" onto the second page and added a page not in the reported total
+    val pages = ImmutableList.<List<String>> of(
+        ImmutableList.of("e1", "e2"),
+        ImmutableList.of("e2", "e3"),
+        ImmutableList.of("e4"));
+    val client = serve(pages, 2);
+
+    @Cleanup
+    val entities = client.streamEntities();
+
+    assertThat(getIds(entities)).containsExactly("e1", "e2", "e3", "e4");
+  }
+
+  @Test
+  public void testFindEntitiesByGnosId() throws IOException {
+    val pages = ImmutableList.<List<String>> of(ImmutableList.of("e1"));
+    val client = serve(pages, pages.size());
+
+    val entities = client.findEntitiesByGnosId("g1");
+
+    assertThat(getIds(entities.stream())).containsExactly("e1");
+  }
+
+  /**
+   * Serves {@code pages} of entities with the given ids. Earlier pages respond more slowly so that prefetched pages
+   * complete out of order.
+   */
+  private MetadataClient serve(List<List<String>> pages, int totalPages) throws IOException {
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/entities", exchange -> {
+      val query = QUERY_SPLITTER.split(exchange.getRequestURI().getQuery());
+      val pageNumber = Integer.parseInt(query.get("page"));
+      Uninterruptibles.sleepUninterruptibly((pages.size() - pageNumber) * PAGE_DELAY_MILLIS, MILLISECONDS);
+
+      val page = MAPPER.createObjectNode();
+      val content = page.putArray("content");
+      for (val id : pages.get(pageNumber)) {
+        content.addObject().put("id", id).put("gnosId", query.get("gnosId"));
+      }
+      page.put("last", pageNumber == pages.size() - 1);
+      page.put("totalPages", totalPages);
+
+      val body = MAPPER.writeValueAsString(page).getBytes(UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      @Cleanup
+      val output = exchange.getResponseBody();
+      output.write(body);
+    });
+    server.start();
+
+    return new MetadataClient("http://localhost:" + server.getAddress().getPort());
+  }
+
+  private static List<String> getIds(Stream<Entity> entities) {
+    return entities.map(Entity::getId).collect(toList());
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import lombok.val;
+
+public class RepositorySubmittedDonorIdsTest {
+
+  @Test
+  public void testContainsAfterResize() {
+    val builder = RepositorySubmittedDonorIds.builder();
+    for (int i = 0; i < 1000; i++) {
+      builder.add("PROJ-A", "DO" + i);
+    }
+
+    val ids = builder.build();
+
+    assertThat(ids.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(ids.contains("PROJ-A", "DO" + i)).isTrue();
+    }
+    assertThat(ids.contains("PROJ-A", "DO1000")).isFalse();
+  }
+
+  @Test
+  public void testDuplicatesAreCountedOnce() {
+    val ids = RepositorySubmittedDonorIds.builder()
+        .add("PROJ-A", "DO1")
+        .add("PROJ-A", "DO1")
+        .add("PROJ-B", "DO1")
+        .build();
+
+    assertThat(ids.size()).isEqualTo(2);
+    assertThat(ids.contains("PROJ-A", "DO1")).isTrue();
+    assertThat(ids.contains("PROJ-B", "DO1")).isTrue();
+  }
+
+  @Test
+  public void testContainsMissingProject() {
+    val ids = RepositorySubmittedDonorIds.builder()
+        .add("PROJ-A", "DO1")
+        .build();
+
+    assertThat(ids.contains("PROJ-B", "DO1")).isFalse();
+  }
+
+  @Test
+  public void testNullArguments() {
+    val ids = RepositorySubmittedDonorIds.builder()
+        .add(null, "DO1")
+        .add("PROJ-A", null)
+        .add("PROJ-A", "DO2")
+        .build();
+
+    assertThat(ids.size()).isEqualTo(1);
+    assertThat(ids.contains(null, "DO1")).isFalse();
+    assertThat(ids.contains("PROJ-A", null)).isFalse();
+    assertThat(ids.contains("PROJ-A", "DO2")).isTrue();
+  }
+
+  @Test
+  public void testEmpty() {
+    val ids = RepositorySubmittedDonorIds.empty();
+
+    assertThat(ids.isEmpty()).isTrue();
+    assertThat(ids.contains("PROJ-A", "DO1")).isFalse();
+  }
+
+}
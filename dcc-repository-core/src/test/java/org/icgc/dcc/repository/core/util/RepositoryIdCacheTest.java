@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.DONOR;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.SAMPLE;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import lombok.Cleanup;
+import lombok.val;
+
+public class RepositoryIdCacheTest {
+
+  @Test
+  public void testPutIsReadOnReload() throws IOException {
+    val file = createCacheFile();
+    @Cleanup
+    val cache = new RepositoryIdCache(file);
+    cache.put(DONOR, "d1", "PROJ-A", "DO1");
+    cache.put(SAMPLE, "s1", null, "SA1");
+
+    @Cleanup
+    val reloaded = new RepositoryIdCache(file);
+
+    assertThat(reloaded.get(DONOR, "d1", "PROJ-A")).isEqualTo(Optional.of("DO1"));
+    assertThat(reloaded.get(SAMPLE, "s1", null)).isEqualTo(Optional.of("SA1"));
+    assertThat(reloaded.get(DONOR, "d1", "PROJ-B")).isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void testReloadAfterTornLine() throws IOException {
+    // The last line was cut short by a crash before its terminator and id were fully written
+    val file = createCacheFile();
+    Files.write(file.toPath(), "DONOR\tPROJ-A\td1\tDO1\nDONOR\tPROJ-A\td2\tDO2".getBytes(UTF_8));
+
+    @Cleanup
+    val cache = new RepositoryIdCache(file);
+
+    assertThat(cache.get(DONOR, "d1", "PROJ-A")).isEqualTo(Optional.of("DO1"));
+    assertThat(cache.get(DONOR, "d2", "PROJ-A")).isEqualTo(Optional.empty());
+
+    @Cleanup
+    val reread = new RepositoryIdCache(file);
+
+    assertThat(reread.get(DONOR, "d2", "PROJ-A")).isEqualTo(Optional.empty());
+
+    cache.put(DONOR, "d2", "PROJ-A", "DO22");
+    cache.put(DONOR, "d3", "PROJ-A", "DO3");
+
+    @Cleanup
+    val reloaded = new RepositoryIdCache(file);
+
+    assertThat(reloaded.get(DONOR, "d1", "PROJ-A")).isEqualTo(Optional.of("DO1"));
+    assertThat(reloaded.get(DONOR, "d2", "PROJ-A")).isEqualTo(Optional.of("DO22"));
+    assertThat(reloaded.get(DONOR, "d3", "PROJ-A")).isEqualTo(Optional.of("DO3"));
+  }
+
+  @Test
+  public void testReloadSkipsMalformedLines() throws IOException {
+    val file = createCacheFile();
+    Files.write(file.toPath(), "DONOR\tPROJ-A\td1\n\nDONOR\tPROJ-A\td2\tDO2\n".getBytes(UTF_8));
+
+    @Cleanup
+    val cache = new RepositoryIdCache(file);
+
+    assertThat(cache.get(DONOR, "d1", "PROJ-A")).isEqualTo(Optional.empty());
+    assertThat(cache.get(DONOR, "d2", "PROJ-A")).isEqualTo(Optional.of("DO2"));
+  }
+
+  @Test
+  public void testPutSkipsReservedCharacters() throws IOException {
+    val file = createCacheFile();
+    @Cleanup
+    val cache = new RepositoryIdCache(file);
+    cache.put(DONOR, "d1\tx", "PROJ-A", "DO1");
+
+    @Cleanup
+    val reloaded = new RepositoryIdCache(file);
+
+    assertThat(reloaded.get(DONOR, "d1\tx", "PROJ-A")).isEqualTo(Optional.empty());
+  }
+
+  private static File createCacheFile() throws IOException {
+    val file = File.createTempFile("ids", ".tsv");
+    file.delete();
+    file.deleteOnExit();
+
+    return file;
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.repository.core.util.RepositoryIdCache.IdType.DONOR;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import lombok.val;
+
+public class RepositoryIdRequestsTest {
+
+  @Test
+  public void testSubmitCoalescesInFlightRequests() {
+    // Requests stay in flight until explicitly run
+    val pending = Lists.<Runnable> newArrayList();
+    val requests = new RepositoryIdRequests(pending::add);
+    val requestCount = new AtomicInteger();
+
+    val first = requests.submit(DONOR, true, "d1", "PROJ-A", () -> "DO" + requestCount.incrementAndGet());
+    val second = requests.submit(DONOR, true, "d1", "PROJ-A", () -> "DO" + requestCount.incrementAndGet());
+
+    assertThat(second).isSameAs(first);
+    assertThat(pending).hasSize(1);
+
+    runAll(pending);
+
+    assertThat(requestCount.get()).isEqualTo(1);
+    assertThat(RepositoryIdRequests.join(first)).isEqualTo("DO1");
+  }
+
+  @Test
+  public void testSubmitDoesNotCoalesceDifferentRequests() {
+    val pending = Lists.<Runnable> newArrayList();
+    val requests = new RepositoryIdRequests(pending::add);
+
+    val create = requests.submit(DONOR, true, "d1", "PROJ-A", () -> "DO1");
+    val get = requests.submit(DONOR, false, "d1", "PROJ-A", () -> "DO1");
+    val otherProject = requests.submit(DONOR, true, "d1", "PROJ-B", () -> "DO2");
+
+    assertThat(get).isNotSameAs(create);
+    assertThat(otherProject).isNotSameAs(create);
+    assertThat(pending).hasSize(3);
+  }
+
+  @Test
+  public void testSubmitAfterCompletionStartsNewRequest() {
+    val pending = Lists.<Runnable> newArrayList();
+    val requests = new RepositoryIdRequests(pending::add);
+
+    val first = requests.submit(DONOR, true, "d1", "PROJ-A", () -> "DO1");
+    runAll(pending);
+    val second = requests.submit(DONOR, true, "d1", "PROJ-A", () -> "DO1");
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(pending).hasSize(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testJoinRethrowsFailure() {
+    val requests = RepositoryIdRequests.direct();
+    val future = requests.submit(DONOR, true, "d1", "PROJ-A", () -> {
+      throw new IllegalStateException("ID service unavailable");
+    });
+
+    RepositoryIdRequests.join(future);
+  }
+
+  private static void runAll(List<Runnable> pending) {
+    val tasks = Lists.newArrayList(pending);
+    pending.clear();
+    tasks.forEach(Runnable::run);
+  }
+
+}
@@ -17,7 +17,6 @@
  */
 package org.icgc.dcc.repository.ega;
 
-import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.repository.core.model.Repositories.getEGARepository;
 import static org.icgc.dcc.repository.core.model.RepositorySource.EGA;
 
@@ -47,12 +46,11 @@ public class EGAImporter extends GenericRepositorySourceFileImporter {
 
   @Override
   @SneakyThrows
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     val client = createEGAClient();
     val metadata = readMetadata(client);
-    val files = processFiles(metadata);
 
-    return files.collect(toList());
+    return processFiles(metadata);
   }
 
   private Stream<EGAMetadata> readMetadata(EGAClient client) {
@@ -18,10 +18,12 @@
 package org.icgc.dcc.repository.ega.pcawg;
 
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.Repositories.getEGARepository;
 import static org.icgc.dcc.repository.core.model.RepositorySource.EGA;
 
 import java.io.File;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
@@ -53,16 +55,15 @@ public class EGAPCAWGImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     log.info("Reading submissions...");
     val submissions = readSubmissions();
     log.info("Finished reading {} submissions", formatCount(submissions));
 
     log.info("Processing files...");
     val files = processSubmissionFiles(submissions);
-    log.info("Finished processing {} files", formatCount(files));
 
-    return files;
+    return stream(files);
   }
 
   private Iterable<EGASubmission> readSubmissions() {
@@ -17,7 +17,6 @@
  */
 package org.icgc.dcc.repository.gdc;
 
-import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.repository.core.model.Repositories.getGDCRepository;
 import static org.icgc.dcc.repository.core.model.RepositorySource.GDC;
 
@@ -46,12 +45,11 @@ public class GDCImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     val client = new GDCClient();
     val files = readFiles(client);
-    val results = processFiles(files);
 
-    return results.collect(toList());
+    return processFiles(files);
   }
 
   private Stream<ObjectNode> readFiles(GDCClient client) {
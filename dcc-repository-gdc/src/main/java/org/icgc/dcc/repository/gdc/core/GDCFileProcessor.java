@@ -17,9 +17,11 @@
  */
 package org.icgc.dcc.repository.gdc.core;
 
+import static com.google.common.collect.Iterators.partition;
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Collections.singleton;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getAccess;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getAliquotId;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getAliquotSubmitterId;
@@ -88,6 +90,7 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
    */
   private static final String SEQUENCING_STRATEGY_CODE_LIST_NAME = "GLOBAL.0.sequencing_strategy.v1";
   private static final String EXCLUDED_EXPERIMENTAL_STRATEGY = "non-NGS";
+  private static final int ID_CHUNK_SIZE = 1000;
 
   /**
    * Metadata.
@@ -108,7 +111,14 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
   }
 
   public Stream<RepositoryFile> process(Stream<ObjectNode> files) {
-    return files.map(this::createFile).filter(this::isIncluded);
+    val includedFiles = files.map(this::createFile).filter(this::isIncluded).iterator();
+
+    // Assign ids per chunk so that shared donors, specimens and samples are resolved once
+    Iterable<List<RepositoryFile>> chunks = () -> partition(includedFiles, ID_CHUNK_SIZE);
+    return stream(chunks).flatMap(chunk -> {
+      assignIds(chunk);
+      return chunk.stream();
+    });
   }
 
   private RepositoryFile createFile(ObjectNode file) {
@@ -213,7 +223,6 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
 
     // "Downstream"
     assignStudy(singleton(gdcFile));
-    assignIds(singleton(gdcFile));
 
     if (++fileCount % 1000 == 0) {
       log.info("Processed {} files", formatCount(fileCount));
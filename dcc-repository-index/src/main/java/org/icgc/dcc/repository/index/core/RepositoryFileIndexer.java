@@ -23,6 +23,7 @@ import static com.google.common.base.Throwables.propagate;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableSet;
 import static org.icgc.dcc.common.core.util.stream.Streams.stream;
+import static org.icgc.dcc.repository.core.util.RepositoryFiles.toObjectNode;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.compareIndexDateDescending;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getCurrentIndexName;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getSettings;
@@ -34,6 +35,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 
@@ -42,14 +44,21 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.client.transport.TransportClient;
+import org.icgc.dcc.repository.core.RepositoryRunManifest;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.index.document.DocumentProcessor;
 import org.icgc.dcc.repository.index.document.DonorTextDocumentProcessor;
 import org.icgc.dcc.repository.index.document.FileCentricDocumentProcessor;
+import org.icgc.dcc.repository.index.document.FileDocumentProcessor;
 import org.icgc.dcc.repository.index.document.FileTextDocumentProcessor;
 import org.icgc.dcc.repository.index.document.RepositoryDocumentProcessor;
 import org.icgc.dcc.repository.index.model.DocumentType;
-import org.icgc.dcc.repository.index.util.LoggingBulkListener;
+import org.icgc.dcc.repository.index.util.CheckpointingBulkListener;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.mongodb.MongoClientURI;
 
 import lombok.Cleanup;
@@ -61,6 +70,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class RepositoryFileIndexer implements Closeable {
 
+  /**
+   * Constants.
+   */
+  private static final Set<DocumentType> RESUMABLE_TYPES =
+      ImmutableSet.of(DocumentType.FILE_CENTRIC, DocumentType.FILE_TEXT);
+
   /**
    * Configuration.
    */
@@ -72,19 +87,39 @@ public class RepositoryFileIndexer implements Closeable {
   private final String indexAlias;
   @NonNull
   private final String indexName;
+  private final int readPartitions;
 
   /**
    * Dependencies.
    */
   @NonNull
   private final TransportClient client;
+  @NonNull
+  private final RepositoryRunManifest manifest;
+
+  /**
+   * State.
+   */
+  private Map<String, Long> resumeCounts = ImmutableMap.of();
+
+  public RepositoryFileIndexer(@NonNull MongoClientURI mongoUri, @NonNull URI esUri, URI archiveUri,
+      String indexAlias, @NonNull RepositoryRunManifest manifest) {
+    this(mongoUri, esUri, archiveUri, indexAlias, manifest, 1);
+  }
 
+  /**
+   * @param readPartitions the number of partitions the {@code File} collection is read in concurrently when indexing
+   * from the collection. A value of {@code 1} reads it sequentially.
+   */
   public RepositoryFileIndexer(@NonNull MongoClientURI mongoUri, @NonNull URI esUri, URI archiveUri,
-      String indexAlias) {
+      String indexAlias, @NonNull RepositoryRunManifest manifest, int readPartitions) {
     this.mongoUri = mongoUri;
+    this.readPartitions = readPartitions;
     this.archiveUri = archiveUri;
     this.indexAlias = indexAlias;
-    this.indexName = getCurrentIndexName(indexAlias);
+    this.manifest = manifest;
+    // Continue with the index of a failed run, even if it was started on another day
+    this.indexName = manifest.getIndexName().orElseGet(() -> getCurrentIndexName(indexAlias));
     this.client = newTransportClient(esUri);
   }
 
@@ -92,6 +127,24 @@ public class RepositoryFileIndexer implements Closeable {
     initializeIndex();
     indexDocuments();
     aliasIndex();
+  }
+
+  /**
+   * Indexes the supplied {@code files} directly instead of reading them back from the {@code File} collection.
+   * <p>
+   * The files are iterated exactly once and each file is handed to all file document processors in turn. The index is
+   * not aliased so that the caller can first make sure the files were also written, then call {@link #aliasIndex()}.
+   */
+  public void indexFiles(@NonNull Iterable<RepositoryFile> files) {
+    initializeIndex();
+    indexDocuments(files);
+  }
+
+  /**
+   * Points the index alias to the new index and prunes stale indexes.
+   */
+  public void aliasIndex() {
+    assignAlias();
     pruneIndexes();
   }
 
@@ -109,6 +162,11 @@ public class RepositoryFileIndexer implements Closeable {
         .actionGet()
         .isExists();
 
+    if (exists && manifest.getIndexName().isPresent()) {
+      resumeIndex();
+      return;
+    }
+
     if (exists) {
       log.info("Deleting index '{}'...", indexName);
       checkState(indexClient.prepareDelete(indexName)
@@ -145,13 +203,30 @@ public class RepositoryFileIndexer implements Closeable {
     } catch (Throwable t) {
       propagate(t);
     }
+
+    manifest.startIndex(indexName);
+  }
+
+  private void resumeIndex() {
+    // Documents of other types are not added in a stable order so they are indexed again
+    val indexedCounts = manifest.getIndexedCounts();
+    val resumeCounts = ImmutableMap.<String, Long> builder();
+    for (val type : RESUMABLE_TYPES) {
+      val indexedCount = indexedCounts.get(type.getId());
+      if (indexedCount != null) {
+        resumeCounts.put(type.getId(), indexedCount);
+      }
+    }
+
+    this.resumeCounts = resumeCounts.build();
+    log.info("Resuming index '{}' after acknowledged documents {}...", indexName, this.resumeCounts);
   }
 
   private void indexDocuments() {
     val watch = createStarted();
 
     @Cleanup
-    val bulkProcessor = createBulkProcessor();
+    val bulkProcessor = createBulkProcessor(getCheckpointedTypes());
     @Cleanup
     val archiveWriter = createArchiveWriter();
 
@@ -169,6 +244,44 @@ public class RepositoryFileIndexer implements Closeable {
         watch);
   }
 
+  @SneakyThrows
+  private void indexDocuments(Iterable<RepositoryFile> files) {
+    val watch = createStarted();
+
+    // Files are added in merge order rather than File collection order so nothing can be skipped on resume
+    @Cleanup
+    val bulkProcessor = createBulkProcessor(ImmutableSet.of());
+    @Cleanup
+    val archiveWriter = createArchiveWriter();
+
+    log.info("Indexing repository documents...");
+    val repositoryCount = indexRepositoryDocuments(bulkProcessor, archiveWriter);
+
+    log.info("Indexing file, file text and file donor documents...");
+    @Cleanup
+    val fileProcessor = new FileCentricDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+    @Cleanup
+    val fileTextProcessor = new FileTextDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+    @Cleanup
+    val fileDonorProcessor = new DonorTextDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+
+    val processors = ImmutableList.<FileDocumentProcessor> of(fileProcessor, fileTextProcessor, fileDonorProcessor);
+    for (val file : files) {
+      val document = toObjectNode(file);
+      for (val processor : processors) {
+        processor.processFile(document);
+      }
+    }
+
+    val fileCount = fileProcessor.complete();
+    val fileTextCount = fileTextProcessor.complete();
+    val fileDonorCount = fileDonorProcessor.complete();
+
+    log.info("Finished indexing {}, repository, {} file, {} file text and {} file donor documents in {}",
+        formatCount(repositoryCount), formatCount(fileCount), formatCount(fileTextCount), formatCount(fileDonorCount),
+        watch);
+  }
+
   @SneakyThrows
   private int indexRepositoryDocuments(BulkProcessor bulkProcessor, TarArchiveDocumentWriter archiveWriter) {
     @Cleanup
@@ -180,6 +293,8 @@ public class RepositoryFileIndexer implements Closeable {
   private int indexFileDocuments(BulkProcessor bulkProcessor, TarArchiveDocumentWriter archiveWriter) {
     @Cleanup
     val processor = new FileCentricDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+    processor.partition(readPartitions);
+    resume(processor, DocumentType.FILE_CENTRIC);
     return processor.process();
   }
 
@@ -187,6 +302,8 @@ public class RepositoryFileIndexer implements Closeable {
   private int indexFileTextDocuments(BulkProcessor bulkProcessor, TarArchiveDocumentWriter archiveWriter) {
     @Cleanup
     val processor = new FileTextDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+    processor.partition(readPartitions);
+    resume(processor, DocumentType.FILE_TEXT);
     return processor.process();
   }
 
@@ -194,11 +311,32 @@ public class RepositoryFileIndexer implements Closeable {
   private int indexFileDonorDocuments(BulkProcessor bulkProcessor, TarArchiveDocumentWriter archiveWriter) {
     @Cleanup
     val processor = new DonorTextDocumentProcessor(mongoUri, indexName, bulkProcessor, archiveWriter);
+    processor.partition(readPartitions);
     return processor.process();
   }
 
-  private BulkProcessor createBulkProcessor() {
-    return BulkProcessor.builder(client, new LoggingBulkListener()).build();
+  private void resume(DocumentProcessor processor, DocumentType type) {
+    val skipCount = resumeCounts.getOrDefault(type.getId(), 0L);
+    if (skipCount > 0) {
+      log.info("Skipping {} '{}' documents acknowledged by the previous run...", formatCount(skipCount), type.getId());
+      processor.resume(skipCount);
+    }
+  }
+
+  /**
+   * Returns the resumable types whose documents are added in {@code _id} order by this run. A processor reads in
+   * partitions, and so in no particular order, unless it is resuming.
+   */
+  private Set<String> getCheckpointedTypes() {
+    return RESUMABLE_TYPES.stream()
+        .map(DocumentType::getId)
+        .filter(type -> readPartitions <= 1 || resumeCounts.getOrDefault(type, 0L) > 0)
+        .collect(toImmutableSet());
+  }
+
+  private BulkProcessor createBulkProcessor(Set<String> checkpointedTypes) {
+    val listener = new CheckpointingBulkListener(manifest, resumeCounts, checkpointedTypes);
+    return BulkProcessor.builder(client, listener).build();
   }
 
   @SneakyThrows
@@ -215,7 +353,7 @@ public class RepositoryFileIndexer implements Closeable {
   }
 
   @SneakyThrows
-  private void aliasIndex() {
+  private void assignAlias() {
     // Remove existing alias
     val request = client.admin().indices().prepareAliases();
     for (val index : getIndexNames()) {
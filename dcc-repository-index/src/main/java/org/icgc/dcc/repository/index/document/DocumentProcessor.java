@@ -17,9 +17,16 @@
  */
 package org.icgc.dcc.repository.index.document;
 
+import static com.google.common.base.Stopwatch.createStarted;
 import static org.elasticsearch.client.Requests.indexRequest;
 import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.bytes;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.name;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.record;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.elasticsearch.action.bulk.BulkProcessor;
@@ -32,6 +39,8 @@ import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.mongodb.MongoClientURI;
 
 import lombok.NonNull;
@@ -56,6 +65,14 @@ public abstract class DocumentProcessor extends AbstractJongoComponent {
   @NonNull
   private final TarArchiveDocumentWriter archiveWriter;
 
+  /**
+   * State.
+   */
+  private final Stopwatch watch = createStarted();
+  private int documentCount;
+  private long skipCount;
+  private int partitionCount = 1;
+
   public DocumentProcessor(MongoClientURI mongoUri, String indexName, DocumentType type, BulkProcessor processor,
       TarArchiveDocumentWriter archiveWriter) {
     super(mongoUri);
@@ -67,8 +84,61 @@ public abstract class DocumentProcessor extends AbstractJongoComponent {
 
   abstract public int process();
 
+  @Override
+  public void close() throws IOException {
+    record(name("index", type.getId()), documentCount, watch);
+    super.close();
+  }
+
+  /**
+   * Skips indexing the first {@code skipCount} documents because they were already acknowledged by a previous run.
+   * They are still archived. Only valid if documents are added in the same order on every run.
+   */
+  public void resume(long skipCount) {
+    this.skipCount = skipCount;
+  }
+
+  /**
+   * Reads the {@code File} collection in {@code partitionCount} concurrently read partitions. Files are then handed to
+   * {@link #eachFile(Consumer)} consumers concurrently and in no particular order. Ignored when resuming.
+   */
+  public void partition(int partitionCount) {
+    this.partitionCount = partitionCount;
+  }
+
   protected int eachFile(Consumer<ObjectNode> consumer) {
-    return eachDocument(RepositoryCollection.FILE, consumer);
+    if (partitionCount > 1 && skipCount == 0) {
+      val fileCount = new AtomicInteger();
+      val files = readPartitions(RepositoryCollection.FILE.getId(), partitionCount, getFileFields(), ObjectNode.class);
+      files.forEach(file -> {
+        consumer.accept(file);
+        fileCount.incrementAndGet();
+      });
+
+      return fileCount.get();
+    }
+
+    // Stable order so that a resumed run adds the same documents first
+    int fileCount = 0;
+    val files = getCollection(RepositoryCollection.FILE).find()
+        .projection(projection(getFileFields()))
+        .sort("{_id: 1}")
+        .as(ObjectNode.class);
+    for (val file : files) {
+      consumer.accept(file);
+
+      fileCount++;
+    }
+
+    return fileCount;
+  }
+
+  /**
+   * The fields of the {@code File} collection read by {@link #eachFile(Consumer)}, in dot notation. All fields are
+   * read if empty.
+   */
+  protected List<String> getFileFields() {
+    return ImmutableList.of();
   }
 
   protected Document createDocument(@NonNull String id) {
@@ -85,13 +155,28 @@ public abstract class DocumentProcessor extends AbstractJongoComponent {
     val source = document.getSource();
     source.remove("_id");
 
-    bulkProcessor.add(
-        indexRequest(indexName)
-            .type(type.getId())
-            .id(document.getId())
-            .source(serializeDocument(source)));
+    // Serialize outside of the lock since files may be processed concurrently. Never skipped when partitioned.
+    val json = documentCount >= skipCount ? serializeDocument(source) : null;
+
+    synchronized (this) {
+      if (json != null) {
+        bulkProcessor.add(
+            indexRequest(indexName)
+                .type(type.getId())
+                .id(document.getId())
+                .source(json));
+
+        // Documents are almost entirely ASCII so characters approximate bytes
+        bytes(name("index", type.getId()), json.length());
+      }
+
+      archiveWriter.write(document);
+      documentCount++;
+    }
+  }
 
-    archiveWriter.write(document);
+  protected int getDocumentCount() {
+    return documentCount;
   }
 
   protected static String getId(ObjectNode file) {
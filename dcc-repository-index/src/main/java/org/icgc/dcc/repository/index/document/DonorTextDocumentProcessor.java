@@ -29,6 +29,7 @@ import org.icgc.dcc.repository.index.model.DocumentType;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
@@ -41,7 +42,7 @@ import lombok.Value;
 import lombok.val;
 import lombok.experimental.Accessors;
 
-public class DonorTextDocumentProcessor extends DocumentProcessor {
+public class DonorTextDocumentProcessor extends FileDocumentProcessor {
 
   /**
    * Constants.
@@ -54,6 +55,19 @@ public class DonorTextDocumentProcessor extends DocumentProcessor {
       "tcga_participant_barcode",
       "tcga_sample_barcode",
       "tcga_aliquot_barcode");
+  private static final List<String> FILE_FIELDS = ImmutableList.of(
+      "donors.donor_id",
+      "donors.submitted_donor_id",
+      "donors.specimen_id",
+      "donors.sample_id",
+      "donors.submitted_specimen_id",
+      "donors.submitted_sample_id",
+      "donors.other_identifiers");
+
+  /**
+   * State.
+   */
+  private final FileDonorSummary summary = new FileDonorSummary();
 
   public DonorTextDocumentProcessor(MongoClientURI mongoUri, String indexName, BulkProcessor bulkProcessor,
       TarArchiveDocumentWriter archiveWriter) {
@@ -61,40 +75,38 @@ public class DonorTextDocumentProcessor extends DocumentProcessor {
   }
 
   @Override
-  @SneakyThrows
-  public int process() {
-    val summary = resolveFileDonorSummary();
+  public synchronized void processFile(ObjectNode file) {
+    // Collect
+    for (JsonNode donor : getDonors(file)) {
+      summary.donorIds().add(getDonorId(donor));
+      summary.submittedDonorIds().put(getDonorId(donor), getSubmittedDonorId(donor));
+
+      for (String fieldName : FIELD_NAMES) {
+        String fieldValu = resolveFieldValue(donor, fieldName);
+        if (!isNullOrEmpty(fieldValu)) {
+          Multimap<String, String> fieldValues = summary.donorFields().get(fieldName);
+          fieldValues.put(getDonorId(donor), fieldValu);
+        }
+      }
+    }
+  }
 
-    val donorIds = summary.donorIds();
-    for (val donorId : donorIds) {
+  @Override
+  @SneakyThrows
+  public int complete() {
+    // Donor documents can only be created once all files have been seen
+    for (val donorId : summary.donorIds()) {
       val document = createFileDonor(summary, donorId);
 
       addDocument(document);
     }
 
-    return donorIds.size();
+    return super.complete();
   }
 
-  private FileDonorSummary resolveFileDonorSummary() {
-    val summary = new FileDonorSummary();
-
-    // Collect
-    eachFile(file -> {
-      for (JsonNode donor : getDonors(file)) {
-        summary.donorIds().add(getDonorId(donor));
-        summary.submittedDonorIds().put(getDonorId(donor), getSubmittedDonorId(donor));
-
-        for (String fieldName : FIELD_NAMES) {
-          String fieldValu = resolveFieldValue(donor, fieldName);
-          if (!isNullOrEmpty(fieldValu)) {
-            Multimap<String, String> fieldValues = summary.donorFields().get(fieldName);
-            fieldValues.put(getDonorId(donor), fieldValu);
-          }
-        }
-      }
-    });
-
-    return summary;
+  @Override
+  protected List<String> getFileFields() {
+    return FILE_FIELDS;
   }
 
   private String resolveFieldValue(JsonNode donor, String fieldName) {
@@ -22,9 +22,10 @@ import org.icgc.dcc.repository.index.model.Document;
 import org.icgc.dcc.repository.index.model.DocumentType;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mongodb.MongoClientURI;
 
-public class FileCentricDocumentProcessor extends DocumentProcessor {
+public class FileCentricDocumentProcessor extends FileDocumentProcessor {
 
   public FileCentricDocumentProcessor(MongoClientURI mongoUri, String indexName, BulkProcessor processor,
       TarArchiveDocumentWriter archiveWriter) {
@@ -32,13 +33,11 @@ public class FileCentricDocumentProcessor extends DocumentProcessor {
   }
 
   @Override
-  public int process() {
-    return eachFile(file -> {
-      String id = getId(file);
-      Document document = createDocument(id, file);
+  public void processFile(ObjectNode file) {
+    String id = getId(file);
+    Document document = createDocument(id, file);
 
-      addDocument(document);
-    });
+    addDocument(document);
   }
 
 }
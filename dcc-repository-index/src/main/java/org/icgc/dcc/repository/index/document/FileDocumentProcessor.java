@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.document;
+
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.MongoClientURI;
+
+/**
+ * Document processor that derives its documents from the files of the {@code File} collection.
+ * <p>
+ * Files can either be read from the collection via {@link #process()} or be pushed one at a time via
+ * {@link #processFile(ObjectNode)} followed by {@link #complete()} when they are streamed directly from the merge.
+ */
+public abstract class FileDocumentProcessor extends DocumentProcessor {
+
+  public FileDocumentProcessor(MongoClientURI mongoUri, String indexName, DocumentType type, BulkProcessor processor,
+      TarArchiveDocumentWriter archiveWriter) {
+    super(mongoUri, indexName, type, processor, archiveWriter);
+  }
+
+  @Override
+  public int process() {
+    eachFile(this::processFile);
+
+    return complete();
+  }
+
+  /**
+   * Processes a single file document in the {@code File} collection layout. May be called concurrently when the
+   * processor is {@link #partition(int) partitioned}.
+   */
+  abstract public void processFile(ObjectNode file);
+
+  /**
+   * Completes processing after the last file has been processed.
+   * 
+   * @return the number of documents added
+   */
+  public int complete() {
+    return getDocumentCount();
+  }
+
+}
@@ -28,11 +28,24 @@ import org.icgc.dcc.repository.index.model.DocumentType;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.mongodb.MongoClientURI;
 
 import lombok.val;
 
-public class FileTextDocumentProcessor extends DocumentProcessor {
+public class FileTextDocumentProcessor extends FileDocumentProcessor {
+
+  /**
+   * Constants.
+   */
+  private static final List<String> FILE_FIELDS = ImmutableList.of(
+      "id",
+      "object_id",
+      "file_copies.file_name",
+      "data_categorization.data_type",
+      "donors.donor_id",
+      "donors.project_code",
+      "data_bundle.data_bundle_id");
 
   public FileTextDocumentProcessor(MongoClientURI mongoUri, String indexName, BulkProcessor processor,
       TarArchiveDocumentWriter archiveWriter) {
@@ -40,17 +53,18 @@ public class FileTextDocumentProcessor extends DocumentProcessor {
   }
 
   @Override
-  public int process() {
-    return eachFile(this::addDocument);
-  }
-
-  private void addDocument(ObjectNode file) {
+  public void processFile(ObjectNode file) {
     val id = getId(file);
     val document = createFileText(file, id);
 
     addDocument(document);
   }
 
+  @Override
+  protected List<String> getFileFields() {
+    return FILE_FIELDS;
+  }
+
   private Document createFileText(ObjectNode file, String id) {
     val document = createDocument(id);
 
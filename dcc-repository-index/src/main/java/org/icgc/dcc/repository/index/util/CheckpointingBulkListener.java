@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.icgc.dcc.repository.core.RepositoryRunManifest;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Records the number of documents of each type acknowledged by Elasticsearch in the run manifest after every
+ * successful bulk request.
+ * <p>
+ * Bulk requests are executed one at a time and in order, so the acknowledged documents of each type are always a
+ * prefix of the documents added for that type. That prefix can only be skipped on resume if the documents are added in
+ * the same order on every run, so only the counts of the supplied checkpointed types are recorded.
+ */
+public class CheckpointingBulkListener extends LoggingBulkListener {
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final RepositoryRunManifest manifest;
+
+  /**
+   * State.
+   */
+  private final Map<String, Long> indexedCounts;
+  private final Set<String> checkpointedTypes;
+
+  /**
+   * @param indexedCounts the counts acknowledged by a previous run whose documents will not be added again
+   * @param checkpointedTypes the types whose documents are added in a stable order
+   */
+  public CheckpointingBulkListener(@NonNull RepositoryRunManifest manifest, @NonNull Map<String, Long> indexedCounts,
+      @NonNull Set<String> checkpointedTypes) {
+    this.manifest = manifest;
+    this.indexedCounts = Maps.newHashMap(indexedCounts);
+    this.checkpointedTypes = ImmutableSet.copyOf(checkpointedTypes);
+  }
+
+  @Override
+  public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+    // Fails on partial failures so only fully acknowledged requests are counted
+    super.afterBulk(executionId, request, response);
+
+    if (checkpointedTypes.isEmpty()) {
+      return;
+    }
+
+    for (val action : request.requests()) {
+      val type = ((IndexRequest) action).type();
+      if (checkpointedTypes.contains(type)) {
+        indexedCounts.merge(type, 1L, Long::sum);
+      }
+    }
+
+    manifest.markIndexed(indexedCounts);
+  }
+
+}
@@ -19,6 +19,7 @@ package org.icgc.dcc.repository.index.util;
 
 import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
 import static org.icgc.dcc.common.core.util.Formats.formatBytes;
+import static org.icgc.dcc.repository.core.util.RepositoryMetrics.bytes;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -88,6 +89,7 @@ public class TarArchiveDocumentWriter implements Closeable {
   @SneakyThrows
   public void close() {
     log.info("Bytes written: {}", formatBytes(archive.getBytesWritten()));
+    bytes("index.archive", archive.getBytesWritten());
 
     log.info("Closing archive...");
     archive.finish();
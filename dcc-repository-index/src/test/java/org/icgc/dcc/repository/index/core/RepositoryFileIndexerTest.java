@@ -22,6 +22,7 @@ import static org.icgc.dcc.repository.core.RepositoryFileContextBuilder.getLocal
 import java.net.URI;
 
 import org.icgc.dcc.common.core.util.URIs;
+import org.icgc.dcc.repository.core.RepositoryRunManifest;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -39,7 +40,9 @@ public class RepositoryFileIndexerTest {
     val indexAlias = "test";
 
     @Cleanup
-    val indexer = new RepositoryFileIndexer(mongoUri, esUri, archiveUri, indexAlias);
+    val manifest = new RepositoryRunManifest(mongoUri, false);
+    @Cleanup
+    val indexer = new RepositoryFileIndexer(mongoUri, esUri, archiveUri, indexAlias, manifest);
     indexer.indexFiles();
   }
 
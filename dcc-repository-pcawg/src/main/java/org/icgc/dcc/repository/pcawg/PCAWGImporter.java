@@ -18,10 +18,12 @@
 package org.icgc.dcc.repository.pcawg;
 
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.RepositorySource.PCAWG;
 import static org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader.DEFAULT_PCAWG_DONOR_ARCHIVE_URL;
 
 import java.net.URL;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
@@ -55,16 +57,15 @@ public class PCAWGImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     log.info("Reading donors...");
     val donors = readDonors();
     log.info("Finished reading {} donors", formatCount(donors));
 
     log.info("Processing donor files...");
     val files = processFiles(donors);
-    log.info("Finished processing {} donor files", formatCount(files));
 
-    return files;
+    return stream(files);
   }
 
   @SneakyThrows
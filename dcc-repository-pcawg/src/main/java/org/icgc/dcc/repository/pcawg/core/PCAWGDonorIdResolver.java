@@ -17,14 +17,11 @@
  */
 package org.icgc.dcc.repository.pcawg.core;
 
-import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableSet;
-import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.getDccProjectCode;
 import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.getSubmitterDonorId;
 
-import java.util.Set;
-
 import org.icgc.dcc.repository.core.RepositoryIdResolver;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
 import org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -37,24 +34,17 @@ import lombok.extern.slf4j.Slf4j;
 public class PCAWGDonorIdResolver implements RepositoryIdResolver {
 
   @Override
-  public Set<String> resolveIds() {
+  public RepositorySubmittedDonorIds resolveIds() {
     val donors = readDonors();
 
     log.info("Collecting PCAWG study donor ids...");
-    val submittedDonorIds = stream(donors)
-        .map(donor -> qualifyDonorId(donor))
-        .collect(toImmutableSet());
+    val submittedDonorIds = RepositorySubmittedDonorIds.builder();
+    for (val donor : donors) {
+      submittedDonorIds.add(getDccProjectCode(donor), getSubmitterDonorId(donor));
+    }
     log.info("Finish collecting PCAWG study donor ids");
 
-    return submittedDonorIds;
-  }
-
-  public static String qualifyDonorId(String projectCode, String submittedDonorId) {
-    return projectCode + ":" + submittedDonorId;
-  }
-
-  private static String qualifyDonorId(ObjectNode donor) {
-    return qualifyDonorId(getDccProjectCode(donor), getSubmitterDonorId(donor));
+    return submittedDonorIds.build();
   }
 
   @SneakyThrows
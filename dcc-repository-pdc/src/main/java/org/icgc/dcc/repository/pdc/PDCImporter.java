@@ -18,11 +18,13 @@
 package org.icgc.dcc.repository.pdc;
 
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.Repositories.getPDCRepository;
 import static org.icgc.dcc.repository.core.model.RepositorySource.PDC;
 import static org.icgc.dcc.repository.pdc.s3.AWSClientFactory.createProtectedS3Client;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
@@ -44,16 +46,15 @@ public class PDCImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     log.info("Reading object summaries...");
     val objectSummaries = readObjectSummaries();
     log.info("Read {} object summaries", formatCount(objectSummaries));
 
     log.info("Processing files...");
     val files = processFiles(objectSummaries);
-    log.info("Processed {} files", formatCount(files));
 
-    return files;
+    return stream(files);
   }
 
   private List<S3ObjectSummary> readObjectSummaries() {
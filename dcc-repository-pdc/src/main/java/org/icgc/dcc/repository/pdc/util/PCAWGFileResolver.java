@@ -26,6 +26,7 @@ import java.io.IOException;
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositoryFileContextBuilder;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.core.model.RepositorySubmittedDonorIds;
 import org.icgc.dcc.repository.pcawg.core.PCAWGFileProcessor;
 import org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader;
 
@@ -94,8 +95,8 @@ public class PCAWGFileResolver {
         .realIds(false)
         .sources(ImmutableSet.of(PCAWG))
         .indexAlias("")
-        .pcawgIdResolver(() -> ImmutableSet.of())
-        .dccIdResolver(() -> ImmutableSet.of())
+        .pcawgIdResolver(() -> RepositorySubmittedDonorIds.empty())
+        .dccIdResolver(() -> RepositorySubmittedDonorIds.empty())
         .build();
   }
 
@@ -17,8 +17,11 @@
  */
 package org.icgc.dcc.repository.tcga;
 
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.RepositorySource.TCGA;
 
+import java.util.stream.Stream;
+
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.util.GenericRepositorySourceFileImporter;
@@ -38,14 +41,14 @@ public class TCGAImporter extends GenericRepositorySourceFileImporter {
   }
 
   @Override
-  protected Iterable<RepositoryFile> readFiles() {
+  protected Stream<RepositoryFile> readFiles() {
     val processor = new TCGAFileProcessor(context);
 
     log.info("Processining clinical files...");
     val files = processor.processClinicalFiles();
     log.info("Finished processing clinical files");
 
-    return files;
+    return stream(files);
   }
 
 }